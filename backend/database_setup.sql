@@ -0,0 +1,25 @@
+-- FULLTEXT indexes for pharmacy.search.mode=fulltext (MySQL 5.7+ / InnoDB).
+-- Hibernate ddl-auto does not create these; run once per database.
+-- Without all three the application logs a warning and keeps LIKE search.
+-- Measured on 1,000,000 medicines (MariaDB 11.4, InnoDB, one CPU; page of 10 plus total count):
+--   a word matching under ~2% of rows   fulltext 0.03-0.09s   like 3.6-4.8s
+--   a word matching ~3% (33k rows)      fulltext 0.9s         like 1.3s
+--   a word matching ~8% (83k rows)      fulltext 4.5s         like 1.2s
+-- Fulltext pays a row lookup per match for the id order and the count, so it loses on words
+-- that occur in a large share of the catalog; LIKE stops early on those. Stopwords and words
+-- below innodb_ft_min_token_size are read from the server at startup and handled there.
+
+ALTER TABLE medicines ADD FULLTEXT INDEX ft_medicines_search (medicine_name, medicine_type, manufacturer);
+ALTER TABLE suppliers ADD FULLTEXT INDEX ft_suppliers_search (supplier_name, company, email);
+ALTER TABLE customers ADD FULLTEXT INDEX ft_customers_search (customer_name, email);
+
+-- Dictionary-encoded columns. Status and type values now live in dictionary_entries and
+-- the tables store SMALLINT codes (*_code). On first start after the upgrade the application
+-- encodes existing rows and makes the old VARCHAR columns nullable. Once verified, drop them:
+-- ALTER TABLE sales DROP COLUMN status, DROP COLUMN sale_type;
+-- ALTER TABLE payments DROP COLUMN status, DROP COLUMN payment_type;
+-- ALTER TABLE medicines DROP COLUMN status;
+-- ALTER TABLE suppliers DROP COLUMN supply_type;
+
+-- Collection versions are now read from change_log; the old counter table is no longer used:
+-- DROP TABLE collection_versions;
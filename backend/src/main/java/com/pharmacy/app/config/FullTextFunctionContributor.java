@@ -0,0 +1,22 @@
+package com.pharmacy.app.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+// MySQL MATCH ... AGAINST for JPQL, registered through META-INF/services.
+// Only used when CatalogSearchService has confirmed a MySQL database with the FULLTEXT indexes
+public class FullTextFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Double> relevance = functionContributions.getTypeConfiguration()
+            .getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+
+        functionContributions.getFunctionRegistry().registerPattern(
+            "match_against_2", "match(?1, ?2) against (?3 in boolean mode)", relevance);
+        functionContributions.getFunctionRegistry().registerPattern(
+            "match_against_3", "match(?1, ?2, ?3) against (?4 in boolean mode)", relevance);
+    }
+}
@@ -90,6 +90,13 @@ public class WebSecurityConfig {
                 .requestMatchers("/api/suppliers", "/api/suppliers/**").permitAll()
                 .requestMatchers("/api/payments", "/api/payments/**").permitAll()
                 .requestMatchers("/api/sales", "/api/sales/**").permitAll()
+                .requestMatchers("/api/stream/**").permitAll()
+                .requestMatchers("/api/sync", "/api/sync/**").permitAll()
+                .requestMatchers("/api/autocomplete").permitAll()
+                .requestMatchers("/api/search").permitAll()
+                .requestMatchers("/api/reports/**").permitAll()
+                .requestMatchers("/api/alerts", "/api/alerts/**").permitAll()
+                .requestMatchers("/api/reconciliation", "/api/reconciliation/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/error").permitAll()
                 .anyRequest().authenticated()
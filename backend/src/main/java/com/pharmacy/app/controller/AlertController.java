@@ -0,0 +1,72 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.entity.Alert;
+import com.pharmacy.app.service.AnomalyDetectionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertController {
+
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+
+    // Get alerts with pagination, open ones only unless all=true
+    @GetMapping
+    public ResponseEntity<?> getAlerts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean all) {
+        try {
+            Page<Alert> alerts = anomalyDetectionService.getAlerts(page, size, !all);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("alerts", alerts.getContent());
+            response.put("currentPage", alerts.getNumber());
+            response.put("totalItems", alerts.getTotalElements());
+            response.put("totalPages", alerts.getTotalPages());
+            response.put("hasNext", alerts.hasNext());
+            response.put("hasPrevious", alerts.hasPrevious());
+            response.put("openAlerts", anomalyDetectionService.getOpenCount());
+            response.put("droppedEvents", anomalyDetectionService.getDropped());
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch alerts: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Mark an alert as reviewed
+    @PatchMapping("/{id}/acknowledge")
+    public ResponseEntity<?> acknowledgeAlert(@PathVariable Long id) {
+        try {
+            Alert alert = anomalyDetectionService.acknowledge(id);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Alert acknowledged");
+            response.put("alert", alert);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+    }
+}
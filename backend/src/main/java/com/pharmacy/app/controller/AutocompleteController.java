@@ -0,0 +1,38 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.service.NameIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/autocomplete")
+public class AutocompleteController {
+
+    @Autowired
+    private NameIndexService nameIndexService;
+
+    // Suggest medicine and/or customer names for a typed prefix
+    @GetMapping
+    public ResponseEntity<?> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "all") String type,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("query", q);
+        if (type.equalsIgnoreCase("all") || type.equalsIgnoreCase("medicine")) {
+            response.put("medicines", nameIndexService.suggestMedicines(q, limit));
+        }
+        if (type.equalsIgnoreCase("all") || type.equalsIgnoreCase("customer")) {
+            response.put("customers", nameIndexService.suggestCustomers(q, limit));
+        }
+
+        return ResponseEntity.ok(response);
+    }
+}
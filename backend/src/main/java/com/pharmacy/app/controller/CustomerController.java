@@ -2,6 +2,7 @@ package com.pharmacy.app.controller;
 
 import com.pharmacy.app.dto.CustomerRequest;
 import com.pharmacy.app.dto.CustomerResponse;
+import com.pharmacy.app.service.CollectionVersionService;
 import com.pharmacy.app.service.CustomerService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +24,9 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
     
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+    
     // Create new customer
     @PostMapping
     public ResponseEntity<?> createCustomer(@Valid @RequestBody CustomerRequest request) {
@@ -50,11 +55,18 @@ public class CustomerController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        
+        if (collectionVersionService.checkNotModified(webRequest, "customer")) {
+            return null;
+        }
         
         try {
-            Page<CustomerResponse> customers = customerService.getAllCustomers(
-                page, size, sortBy, sortDir, search);
+            Page<?> customers = fields != null && !fields.isBlank()
+                ? customerService.getCustomerFields(page, size, sortBy, sortDir, search, fields)
+                : customerService.getAllCustomers(page, size, sortBy, sortDir, search);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -2,6 +2,7 @@ package com.pharmacy.app.controller;
 
 import com.pharmacy.app.dto.EquipmentRequest;
 import com.pharmacy.app.dto.EquipmentResponse;
+import com.pharmacy.app.service.CollectionVersionService;
 import com.pharmacy.app.service.EquipmentService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -23,6 +25,9 @@ public class EquipmentController {
     @Autowired
     private EquipmentService equipmentService;
     
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+    
     // Create new equipment
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('MANAGER') or hasRole('PHARMACIST')")
@@ -53,7 +58,12 @@ public class EquipmentController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "equipmentName") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            WebRequest webRequest) {
+        if (collectionVersionService.checkNotModified(webRequest, "equipment")) {
+            return null;
+        }
+        
         try {
             Page<EquipmentResponse> equipmentPage = equipmentService.getAllEquipment(page, size, sortBy, sortDir, search);
             
@@ -142,7 +152,11 @@ public class EquipmentController {
     // Get all equipment (without pagination)
     @GetMapping("/all")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('PHARMACIST') or hasRole('MANAGER')")
-    public ResponseEntity<?> getAllEquipmentList() {
+    public ResponseEntity<?> getAllEquipmentList(WebRequest webRequest) {
+        if (collectionVersionService.checkNotModified(webRequest, "equipment")) {
+            return null;
+        }
+        
         try {
             List<EquipmentResponse> equipment = equipmentService.getAllEquipment();
             
@@ -2,6 +2,8 @@ package com.pharmacy.app.controller;
 
 import com.pharmacy.app.dto.MedicineRequest;
 import com.pharmacy.app.dto.MedicineResponse;
+import com.pharmacy.app.service.CollectionVersionService;
+import com.pharmacy.app.service.DemandForecastService;
 import com.pharmacy.app.service.MedicineService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +11,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +25,12 @@ public class MedicineController {
     @Autowired
     private MedicineService medicineService;
     
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+    
+    @Autowired
+    private DemandForecastService demandForecastService;
+    
     // Create new medicine
     @PostMapping
     public ResponseEntity<?> createMedicine(@Valid @RequestBody MedicineRequest request) {
@@ -55,11 +64,24 @@ public class MedicineController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            WebRequest webRequest) {
+        
+        if (collectionVersionService.checkNotModified(webRequest, "medicine")) {
+            return null;
+        }
         
         try {
-            Page<MedicineResponse> medicines = medicineService.getAllMedicines(
-                page, size, sortBy, sortDir, search);
+            Page<?> medicines;
+            if (fuzzy && search != null && !search.isBlank()) {
+                medicines = medicineService.fuzzySearchMedicines(search, page, size);
+            } else if (fields != null && !fields.isBlank()) {
+                medicines = medicineService.getMedicineFields(page, size, sortBy, sortDir, search, fields);
+            } else {
+                medicines = medicineService.getAllMedicines(page, size, sortBy, sortDir, search);
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -162,16 +184,20 @@ public class MedicineController {
         }
     }
     
-    // Update medicine stock
+    // Update medicine stock; movementType defaults to RECEIPT for an increase and SALE for a decrease
     @PatchMapping("/{id}/stock")
-    public ResponseEntity<?> updateMedicineStock(@PathVariable Long id, @RequestBody Map<String, Integer> request) {
+    public ResponseEntity<?> updateMedicineStock(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request,
+            @RequestParam(required = false) String movementType,
+            @RequestParam(required = false) String reference) {
         try {
             Integer newQuantity = request.get("quantity");
             if (newQuantity == null || newQuantity < 0) {
                 throw new RuntimeException("Invalid quantity");
             }
             
-            MedicineResponse medicine = medicineService.updateMedicineStock(id, newQuantity);
+            MedicineResponse medicine = medicineService.updateMedicineStock(id, newQuantity, movementType, reference);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -209,6 +235,28 @@ public class MedicineController {
         }
     }
     
+    // Get medicines due for reordering from their forecast demand, fewest days of cover first
+    @GetMapping("/reorder-suggestions")
+    public ResponseEntity<?> getReorderSuggestions(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean all) {
+        try {
+            DemandForecastService.ReorderResult result = demandForecastService.getReorderSuggestions(limit, all);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("reorder", result);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
     // Get expired medicines
     @GetMapping("/expired")
     public ResponseEntity<?> getExpiredMedicines() {
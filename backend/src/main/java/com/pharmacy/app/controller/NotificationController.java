@@ -0,0 +1,92 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.entity.Notification;
+import com.pharmacy.app.service.NotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/notifications")
+public class NotificationController {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // Get inbox notifications with pagination, unread ones only unless all=true
+    @GetMapping
+    public ResponseEntity<?> getNotifications(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean all) {
+        try {
+            Page<Notification> notifications = notificationService.getNotifications(page, size, !all);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("notifications", notifications.getContent());
+            response.put("currentPage", notifications.getNumber());
+            response.put("totalItems", notifications.getTotalElements());
+            response.put("totalPages", notifications.getTotalPages());
+            response.put("hasNext", notifications.hasNext());
+            response.put("hasPrevious", notifications.hasPrevious());
+            response.put("unreadCount", notificationService.getUnreadCount());
+            response.put("status", notificationService.getStatus());
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch notifications: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Mark a notification as read
+    @PatchMapping("/{id}/read")
+    public ResponseEntity<?> markRead(@PathVariable Long id) {
+        try {
+            Notification notification = notificationService.markRead(id);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Notification marked as read");
+            response.put("notification", notification);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+    }
+
+    // Mark every notification as read
+    @PatchMapping("/read-all")
+    public ResponseEntity<?> markAllRead() {
+        try {
+            int updated = notificationService.markAllRead();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", updated + " notifications marked as read");
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+}
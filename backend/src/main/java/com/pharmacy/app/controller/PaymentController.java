@@ -2,6 +2,8 @@ package com.pharmacy.app.controller;
 
 import com.pharmacy.app.dto.PaymentRequest;
 import com.pharmacy.app.dto.PaymentResponse;
+import com.pharmacy.app.service.CollectionVersionService;
+import com.pharmacy.app.service.PaymentAgingService;
 import com.pharmacy.app.service.PaymentService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -24,6 +27,12 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
     
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+    
+    @Autowired
+    private PaymentAgingService paymentAgingService;
+    
     // Create new payment
     @PostMapping
     public ResponseEntity<?> createPayment(@Valid @RequestBody PaymentRequest request) {
@@ -57,11 +66,18 @@ public class PaymentController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "paymentId") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        
+        if (collectionVersionService.checkNotModified(webRequest, "payment")) {
+            return null;
+        }
         
         try {
-            Page<PaymentResponse> payments = paymentService.getAllPayments(
-                page, size, sortBy, sortDir, search);
+            Page<?> payments = fields != null && !fields.isBlank()
+                ? paymentService.getPaymentFields(page, size, sortBy, sortDir, search, fields)
+                : paymentService.getAllPayments(page, size, sortBy, sortDir, search);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -250,6 +266,28 @@ public class PaymentController {
         }
     }
     
+    // Get pending payment amounts per age bucket (0-30, 31-60, 61-90, 90+ days) per supplier
+    @GetMapping("/aging")
+    public ResponseEntity<?> getPaymentAging(
+            @RequestParam(required = false) String supplier,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            PaymentAgingService.AgingResult aging = paymentAgingService.getAging(supplier, limit);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("aging", aging);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
     // Get distinct payment types
     @GetMapping("/payment-types")
     public ResponseEntity<?> getDistinctPaymentTypes() {
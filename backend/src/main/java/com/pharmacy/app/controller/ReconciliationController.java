@@ -0,0 +1,121 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.entity.ReconciliationEntry;
+import com.pharmacy.app.service.ReconciliationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/reconciliation")
+public class ReconciliationController {
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    // Get the daily inflow (sales) versus outflow (payments) report with pagination
+    @GetMapping
+    public ResponseEntity<?> getDays(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "31") int size) {
+        try {
+            LocalDate to = endDate != null ? endDate : LocalDate.now();
+            LocalDate from = startDate != null ? startDate : to.minusDays(29);
+            Page<ReconciliationEntry> days = reconciliationService.getDays(from, to, page, size);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("startDate", from);
+            response.put("endDate", to);
+            response.put("days", days.getContent());
+            response.put("currentPage", days.getNumber());
+            response.put("totalItems", days.getTotalElements());
+            response.put("totalPages", days.getTotalPages());
+            response.put("hasNext", days.hasNext());
+            response.put("hasPrevious", days.hasPrevious());
+            response.put("totals", reconciliationService.getTotals(from, to));
+            response.put("running", reconciliationService.isRunning());
+            response.put("lastRun", reconciliationService.getLastRun());
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch reconciliation report: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Get customer and supplier totals, or the day-by-day entries of one when counterparty is given
+    @GetMapping("/counterparties")
+    public ResponseEntity<?> getCounterparties(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String counterparty,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            LocalDate to = endDate != null ? endDate : LocalDate.now();
+            LocalDate from = startDate != null ? startDate : to.minusDays(29);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("startDate", from);
+            response.put("endDate", to);
+            if (counterparty != null && !counterparty.isBlank()) {
+                List<ReconciliationEntry> days = reconciliationService.getCounterpartyDays(counterparty, from, to);
+                response.put("counterparty", counterparty.trim());
+                response.put("days", days);
+            } else {
+                response.put("counterparties", reconciliationService.getCounterparties(from, to, Math.max(1, Math.min(limit, 1000))));
+            }
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch counterparties: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Recompute the report for a date range in the background; all history by default
+    @PostMapping("/run")
+    public ResponseEntity<?> run(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            reconciliationService.submit(startDate, endDate);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Reconciliation started");
+            
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/reports/jobs")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    // Queue a report; poll the job or listen for report.completed on /api/stream/changes
+    @PostMapping
+    public ResponseEntity<?> submitReport(
+            @RequestParam String type,
+            @RequestParam(required = false) String saleType,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String customer,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            ReportJobService.ReportJob job = switch (type.trim().toLowerCase()) {
+                case "sales" -> reportJobService.submitSalesReport(saleType, status, customer, startDate, endDate);
+                case "payments" -> reportJobService.submitPaymentsReport(startDate, endDate);
+                default -> throw new IllegalArgumentException("Invalid report type: " + type + " (use sales or payments)");
+            };
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Report queued");
+            response.put("job", job);
+            response.put("statusUrl", "/api/reports/jobs/" + job.getId());
+            response.put("resultUrl", "/api/reports/jobs/" + job.getId() + "/result");
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        }
+    }
+
+    // List unexpired jobs, newest first
+    @GetMapping
+    public ResponseEntity<?> getJobs() {
+        List<ReportJobService.ReportJob> jobs = reportJobService.getJobs();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("totalItems", jobs.size());
+        response.put("jobs", jobs);
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Status of a job
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        ReportJobService.ReportJob job = reportJobService.getJob(id);
+        if (job == null) {
+            return notFound(id);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("job", job);
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Result of a completed job, served as stored
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> getResult(@PathVariable String id) {
+        ReportJobService.ReportJob job = reportJobService.getJob(id);
+        if (job == null) {
+            return notFound(id);
+        }
+        byte[] result = reportJobService.getResult(id);
+        if (result == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", ReportJobService.FAILED.equals(job.getStatus())
+                ? "Report failed: " + job.getError()
+                : "Report is not ready");
+            errorResponse.put("job", job);
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(result);
+    }
+
+    // Cancel a job or discard its result
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteJob(@PathVariable String id) {
+        if (!reportJobService.deleteJob(id)) {
+            return notFound(id);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Report job deleted");
+
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<?> notFound(String id) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", "Report job not found or expired: " + id);
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+}
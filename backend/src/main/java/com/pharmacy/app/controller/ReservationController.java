@@ -0,0 +1,129 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.dto.ReservationRequest;
+import com.pharmacy.app.entity.StockReservation;
+import com.pharmacy.app.service.ReservationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/reservations")
+public class ReservationController {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    // Hold units of a medicine or equipment item for a checkout cart
+    @PostMapping
+    public ResponseEntity<?> reserve(@Valid @RequestBody ReservationRequest request) {
+        try {
+            StockReservation reservation = reservationService.reserve(request);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Stock reserved successfully");
+            response.put("reservation", reservation);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, "Failed to reserve stock: " + e.getMessage());
+        }
+    }
+
+    // Get every reservation of a cart
+    @GetMapping("/carts/{cartId}")
+    public ResponseEntity<?> getCart(@PathVariable String cartId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("reservations", reservationService.getCart(cartId));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, "Failed to fetch reservations: " + e.getMessage());
+        }
+    }
+
+    // Release one hold
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> release(@PathVariable Long id) {
+        try {
+            if (!reservationService.release(id)) {
+                return error(HttpStatus.NOT_FOUND, "No live hold with id: " + id);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Reservation released successfully");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, "Failed to release reservation: " + e.getMessage());
+        }
+    }
+
+    // Release every hold of a cart
+    @DeleteMapping("/carts/{cartId}")
+    public ResponseEntity<?> releaseCart(@PathVariable String cartId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("released", reservationService.releaseCart(cartId));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, "Failed to release cart: " + e.getMessage());
+        }
+    }
+
+    // Take the held units of a cart out of stock as a sale
+    @PostMapping("/carts/{cartId}/commit")
+    public ResponseEntity<?> commitCart(@PathVariable String cartId) {
+        try {
+            List<ReservationService.CommittedItem> items = reservationService.commitCart(cartId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Cart committed successfully");
+            response.put("items", items);
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, "Failed to commit cart: " + e.getMessage());
+        }
+    }
+
+    // Get the stock of an item, the units held and what is left to reserve
+    @GetMapping("/availability/{itemType}/{id}")
+    public ResponseEntity<?> getAvailability(@PathVariable String itemType, @PathVariable Long id) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("availability", reservationService.getAvailability(itemType, id));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, "Failed to fetch availability: " + e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", message);
+
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+}
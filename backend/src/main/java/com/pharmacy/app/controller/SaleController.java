@@ -2,7 +2,10 @@ package com.pharmacy.app.controller;
 
 import com.pharmacy.app.dto.SaleRequest;
 import com.pharmacy.app.dto.SaleResponse;
+import com.pharmacy.app.service.CollectionVersionService;
+import com.pharmacy.app.service.CustomerSketchService;
 import com.pharmacy.app.service.SaleService;
+import com.pharmacy.app.service.SalesAnalyticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -10,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.time.LocalDate;
@@ -26,6 +30,15 @@ public class SaleController {
 
     @Autowired
     private SaleService saleService;
+    
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    @Autowired
+    private CustomerSketchService customerSketchService;
 
     // Create a new sale
     @PostMapping
@@ -50,9 +63,17 @@ public class SaleController {
 
     // Get all sales
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllSales() {
+    public ResponseEntity<Map<String, Object>> getAllSales(
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (collectionVersionService.checkNotModified(webRequest, "sale")) {
+            return null;
+        }
+        
         try {
-            List<SaleResponse> sales = saleService.getAllSales();
+            List<?> sales = fields != null && !fields.isBlank()
+                ? saleService.getSaleFields(fields)
+                : saleService.getAllSales();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -153,9 +174,17 @@ public class SaleController {
     @GetMapping("/paginated")
     public ResponseEntity<Map<String, Object>> getSalesWithPagination(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (collectionVersionService.checkNotModified(webRequest, "sale")) {
+            return null;
+        }
+        
         try {
-            Page<SaleResponse> salesPage = saleService.getSalesWithPagination(page, size);
+            Page<?> salesPage = fields != null && !fields.isBlank()
+                ? saleService.getSaleFieldsWithPagination(page, size, fields)
+                : saleService.getSalesWithPagination(page, size);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -240,4 +269,112 @@ public class SaleController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+
+    // Sales counts and totals grouped by day, month, type, status or customer
+    @GetMapping("/analytics")
+    public ResponseEntity<Map<String, Object>> getSalesAnalytics(
+            @RequestParam(defaultValue = "day") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String saleType,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String customer,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            SalesAnalyticsService.AnalyticsResult analytics =
+                salesAnalyticsService.query(groupBy, startDate, endDate, saleType, status, customer, limit);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("analytics", analytics);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch sales analytics: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Customers with the highest spend, by default over the current month
+    @GetMapping("/top-customers")
+    public ResponseEntity<Map<String, Object>> getTopCustomers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String saleType,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            SalesAnalyticsService.TopCustomersResult top =
+                salesAnalyticsService.topCustomers(startDate, endDate, saleType, status, limit);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("startDate", top.getStartDate());
+            response.put("endDate", top.getEndDate());
+            response.put("customers", top.getCustomers());
+            response.put("source", top.getSource());
+            response.put("tookMs", top.getTookMs());
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch top customers: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Estimated distinct customers per day, week or month, by default over the last 30 days
+    @GetMapping("/unique-customers")
+    public ResponseEntity<Map<String, Object>> getUniqueCustomers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "day") String groupBy) {
+        try {
+            CustomerSketchService.UniqueCustomersResult result =
+                customerSketchService.uniqueCustomers(startDate, endDate, groupBy);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("uniqueCustomers", result);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch unique customers: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Sale amount percentiles and histogram, overall or per day or sale type
+    @GetMapping("/amount-distribution")
+    public ResponseEntity<Map<String, Object>> getAmountDistribution(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String saleType,
+            @RequestParam(defaultValue = "none") String groupBy,
+            @RequestParam(defaultValue = "10") int bins) {
+        try {
+            SalesAnalyticsService.DistributionResult distribution =
+                salesAnalyticsService.amountDistribution(startDate, endDate, saleType, groupBy, bins);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("distribution", distribution);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch amount distribution: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
 }
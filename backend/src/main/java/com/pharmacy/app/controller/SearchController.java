@@ -0,0 +1,49 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.security.EquipmentAccess;
+import com.pharmacy.app.service.GlobalSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private GlobalSearchService globalSearchService;
+
+    // Search medicines, equipment, customers, suppliers, sales and payments at once
+    @GetMapping
+    public ResponseEntity<?> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(defaultValue = "500") long timeoutMs) {
+        
+        if (q.trim().isEmpty()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Search query is required");
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GlobalSearchService.SearchResult result = globalSearchService.search(q, limit, timeoutMs, EquipmentAccess.isGranted());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("query", result.getQuery());
+        response.put("results", result.getResults());
+        response.put("partial", result.isPartial());
+        response.put("timedOut", result.getTimedOut());
+        response.put("skipped", result.getSkipped());
+        response.put("failed", result.getFailed());
+        response.put("tookMs", result.getTookMs());
+        
+        return ResponseEntity.ok(response);
+    }
+}
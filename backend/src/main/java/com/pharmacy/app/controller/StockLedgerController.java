@@ -0,0 +1,102 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.entity.StockMovement;
+import com.pharmacy.app.service.StockLedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/stock-ledger")
+public class StockLedgerController {
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    // Get the stock movements of a medicine or equipment item, newest first
+    @GetMapping("/{itemType}/{id}/movements")
+    public ResponseEntity<?> getMovements(
+            @PathVariable String itemType,
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Page<StockMovement> movements = stockLedgerService.getMovements(itemType, id, page, size);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("movements", movements.getContent());
+            response.put("currentPage", movements.getNumber());
+            response.put("totalItems", movements.getTotalElements());
+            response.put("totalPages", movements.getTotalPages());
+            response.put("hasNext", movements.hasNext());
+            response.put("hasPrevious", movements.hasPrevious());
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch stock movements: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Get the stock of an item rebuilt from the ledger, now or at a point in time
+    @GetMapping("/{itemType}/{id}/balance")
+    public ResponseEntity<?> getBalance(
+            @PathVariable String itemType,
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            StockLedgerService.BalanceResult balance = stockLedgerService.getBalance(itemType, id, at);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("balance", balance);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to rebuild stock balance: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Get units written off or adjusted away per item over a date range, largest loss first
+    @GetMapping("/{itemType}/shrinkage")
+    public ResponseEntity<?> getShrinkage(
+            @PathVariable String itemType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            LocalDate to = endDate != null ? endDate : LocalDate.now();
+            LocalDate from = startDate != null ? startDate : to.minusDays(29);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("startDate", from);
+            response.put("endDate", to);
+            response.put("items", stockLedgerService.getShrinkage(itemType, from, to, limit));
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch shrinkage: " + e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.security.EquipmentAccess;
+import com.pharmacy.app.service.ChangeStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    @Autowired
+    private ChangeStreamService changeStreamService;
+
+    // Subscribe to inventory, sales and payment change events; equipment changes need a signed-in user
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        return changeStreamService.subscribe(EquipmentAccess.isGranted());
+    }
+
+    // Get number of connected subscribers
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStreamStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("subscribers", changeStreamService.getSubscriberCount());
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -2,6 +2,7 @@ package com.pharmacy.app.controller;
 
 import com.pharmacy.app.dto.SupplierRequest;
 import com.pharmacy.app.dto.SupplierResponse;
+import com.pharmacy.app.service.CollectionVersionService;
 import com.pharmacy.app.service.SupplierService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +24,9 @@ public class SupplierController {
     @Autowired
     private SupplierService supplierService;
     
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+    
     // Create new supplier
     @PostMapping
     public ResponseEntity<?> createSupplier(@Valid @RequestBody SupplierRequest request) {
@@ -55,11 +60,18 @@ public class SupplierController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "supplierId") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        
+        if (collectionVersionService.checkNotModified(webRequest, "supplier")) {
+            return null;
+        }
         
         try {
-            Page<SupplierResponse> suppliers = supplierService.getAllSuppliers(
-                page, size, sortBy, sortDir, search);
+            Page<?> suppliers = fields != null && !fields.isBlank()
+                ? supplierService.getSupplierFields(page, size, sortBy, sortDir, search, fields)
+                : supplierService.getAllSuppliers(page, size, sortBy, sortDir, search);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
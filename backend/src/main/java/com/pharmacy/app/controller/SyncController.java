@@ -0,0 +1,54 @@
+package com.pharmacy.app.controller;
+
+import com.pharmacy.app.security.EquipmentAccess;
+import com.pharmacy.app.service.SyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    @Autowired
+    private SyncService syncService;
+
+    // Get catalog changes since a sync version; equipment needs a signed-in user
+    @GetMapping
+    public ResponseEntity<?> getChangesSince(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            SyncService.SyncResult result = syncService.getChangesSince(since, limit, EquipmentAccess.isGranted());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("since", result.getSince());
+            response.put("version", result.getVersion());
+            response.put("hasMore", result.isHasMore());
+            response.put("changes", result.getChanges());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // Get latest sync version
+    @GetMapping("/version")
+    public ResponseEntity<?> getLatestVersion() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("version", syncService.getLatestVersion());
+
+        return ResponseEntity.ok(response);
+    }
+}
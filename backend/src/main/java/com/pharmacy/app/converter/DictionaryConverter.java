@@ -0,0 +1,30 @@
+package com.pharmacy.app.converter;
+
+import com.pharmacy.app.service.DictionaryService;
+import jakarta.persistence.AttributeConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Stores a dictionary-encoded text attribute as a SMALLINT code. Values are registered
+// by the services before they are written; anything else encodes to UNKNOWN_CODE
+public abstract class DictionaryConverter implements AttributeConverter<String, Short> {
+
+    private final String domain;
+
+    // Converters are created through Spring's bean container, so they can be injected
+    @Autowired
+    private DictionaryService dictionaryService;
+
+    protected DictionaryConverter(String domain) {
+        this.domain = domain;
+    }
+
+    @Override
+    public Short convertToDatabaseColumn(String value) {
+        return value != null ? dictionaryService.encode(domain, value) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        return code != null ? dictionaryService.decode(domain, code) : null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.pharmacy.app.converter;
+
+import com.pharmacy.app.service.DictionaryService;
+import jakarta.persistence.Converter;
+
+@Converter
+public class MedicineStatusConverter extends DictionaryConverter {
+
+    public MedicineStatusConverter() {
+        super(DictionaryService.MEDICINE_STATUS);
+    }
+}
@@ -0,0 +1,12 @@
+package com.pharmacy.app.converter;
+
+import com.pharmacy.app.service.DictionaryService;
+import jakarta.persistence.Converter;
+
+@Converter
+public class PaymentStatusConverter extends DictionaryConverter {
+
+    public PaymentStatusConverter() {
+        super(DictionaryService.PAYMENT_STATUS);
+    }
+}
@@ -0,0 +1,12 @@
+package com.pharmacy.app.converter;
+
+import com.pharmacy.app.service.DictionaryService;
+import jakarta.persistence.Converter;
+
+@Converter
+public class SaleStatusConverter extends DictionaryConverter {
+
+    public SaleStatusConverter() {
+        super(DictionaryService.SALE_STATUS);
+    }
+}
@@ -0,0 +1,12 @@
+package com.pharmacy.app.converter;
+
+import com.pharmacy.app.service.DictionaryService;
+import jakarta.persistence.Converter;
+
+@Converter
+public class SaleTypeConverter extends DictionaryConverter {
+
+    public SaleTypeConverter() {
+        super(DictionaryService.SALE_TYPE);
+    }
+}
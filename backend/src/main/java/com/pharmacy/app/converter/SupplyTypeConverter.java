@@ -0,0 +1,12 @@
+package com.pharmacy.app.converter;
+
+import com.pharmacy.app.service.DictionaryService;
+import jakarta.persistence.Converter;
+
+@Converter
+public class SupplyTypeConverter extends DictionaryConverter {
+
+    public SupplyTypeConverter() {
+        super(DictionaryService.SUPPLY_TYPE);
+    }
+}
@@ -0,0 +1,77 @@
+package com.pharmacy.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+
+public class ChangeEvent {
+
+    private final String entity;
+    private final String action;
+    private final Long id;
+    private final Map<String, Object> data;
+    private final long timestamp;
+
+    // Full response DTOs before/after the change, for in-process listeners only
+    @JsonIgnore
+    private final Object record;
+
+    @JsonIgnore
+    private final Object previous;
+
+    // Constructor
+    public ChangeEvent(String entity, String action, Long id, Map<String, Object> data,
+                       Object record, Object previous) {
+        this.entity = entity;
+        this.action = action;
+        this.id = id;
+        this.data = data;
+        this.record = record;
+        this.previous = previous;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    // Getters
+    public String getEntity() {
+        return entity;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Object getRecord() {
+        return record;
+    }
+
+    public Object getPrevious() {
+        return previous;
+    }
+
+    @JsonIgnore
+    public boolean isDelete() {
+        return "deleted".equals(action);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "entity='" + entity + '\'' +
+                ", action='" + action + '\'' +
+                ", id=" + id +
+                ", data=" + data +
+                '}';
+    }
+}
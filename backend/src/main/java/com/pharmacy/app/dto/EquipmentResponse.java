@@ -6,6 +6,7 @@ public class EquipmentResponse {
     private String equipmentName;
     private String model;
     private Integer noOfEquipments;
+    private Long version;
     
     // Default constructor
     public EquipmentResponse() {}
@@ -18,6 +19,15 @@ public class EquipmentResponse {
         this.noOfEquipments = noOfEquipments;
     }
     
+    // Copy constructor
+    public EquipmentResponse(EquipmentResponse other) {
+        this.id = other.id;
+        this.equipmentName = other.equipmentName;
+        this.model = other.model;
+        this.noOfEquipments = other.noOfEquipments;
+        this.version = other.version;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -51,6 +61,15 @@ public class EquipmentResponse {
         this.noOfEquipments = noOfEquipments;
     }
     
+    // Row version at the time of the read; a higher version is a later state of the row
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "EquipmentResponse{" +
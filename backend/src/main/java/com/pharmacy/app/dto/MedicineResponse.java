@@ -15,6 +15,7 @@ public class MedicineResponse {
     private String batchNumber;
     private String manufacturer;
     private String description;
+    private Long version;
     
     // Default constructor
     public MedicineResponse() {}
@@ -30,6 +31,21 @@ public class MedicineResponse {
         this.expiredDate = expiredDate;
     }
     
+    // Copy constructor
+    public MedicineResponse(MedicineResponse other) {
+        this.id = other.id;
+        this.medicineName = other.medicineName;
+        this.medicineType = other.medicineType;
+        this.noOfMedicines = other.noOfMedicines;
+        this.status = other.status;
+        this.expiredDate = other.expiredDate;
+        this.price = other.price;
+        this.batchNumber = other.batchNumber;
+        this.manufacturer = other.manufacturer;
+        this.description = other.description;
+        this.version = other.version;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -110,4 +126,13 @@ public class MedicineResponse {
     public void setDescription(String description) {
         this.description = description;
     }
+    
+    // Row version at the time of the read; a higher version is a later state of the row
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
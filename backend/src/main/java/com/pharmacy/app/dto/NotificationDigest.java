@@ -0,0 +1,78 @@
+package com.pharmacy.app.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A batch of stock and expiry notifications, delivered to every enabled sink
+public class NotificationDigest {
+
+    private final String id;
+    private final LocalDateTime createdAt;
+    private final List<Item> items;
+
+    // Constructor
+    public NotificationDigest(String id, LocalDateTime createdAt, List<Item> items) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.items = items;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    // Latest state of one item, after coalescing every change to it within the window
+    public static class Item {
+        private final String kind; // LOW_STOCK, OUT_OF_STOCK, RESTOCKED, EXPIRING, EXPIRED, EXPIRY_CLEARED
+        private final String itemType; // medicine, equipment
+        private final Long itemId;
+        private final String itemName;
+        private final Integer quantity;
+        private final Integer threshold;
+        private final LocalDate expiredDate;
+        private final int events;
+        private final LocalDateTime firstAt;
+        private final LocalDateTime lastAt;
+        private final String message;
+
+        // Constructor
+        public Item(String kind, String itemType, Long itemId, String itemName, Integer quantity,
+                    Integer threshold, LocalDate expiredDate, int events, LocalDateTime firstAt,
+                    LocalDateTime lastAt, String message) {
+            this.kind = kind;
+            this.itemType = itemType;
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.quantity = quantity;
+            this.threshold = threshold;
+            this.expiredDate = expiredDate;
+            this.events = events;
+            this.firstAt = firstAt;
+            this.lastAt = lastAt;
+            this.message = message;
+        }
+
+        // Getters
+        public String getKind() { return kind; }
+        public String getItemType() { return itemType; }
+        public Long getItemId() { return itemId; }
+        public String getItemName() { return itemName; }
+        public Integer getQuantity() { return quantity; }
+        public Integer getThreshold() { return threshold; }
+        public LocalDate getExpiredDate() { return expiredDate; }
+        public int getEvents() { return events; }
+        public LocalDateTime getFirstAt() { return firstAt; }
+        public LocalDateTime getLastAt() { return lastAt; }
+        public String getMessage() { return message; }
+    }
+}
@@ -1,5 +1,6 @@
 package com.pharmacy.app.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -23,6 +24,7 @@ public class PaymentRequest {
     
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be positive")
+    @Digits(integer = 8, fraction = 2, message = "Amount must have at most 8 digits and 2 decimals")
     private BigDecimal amount;
     
     @NotBlank(message = "Status is required")
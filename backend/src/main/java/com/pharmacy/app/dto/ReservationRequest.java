@@ -0,0 +1,71 @@
+package com.pharmacy.app.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public class ReservationRequest {
+    
+    @NotBlank(message = "Cart id is required")
+    @Size(max = 64, message = "Cart id must be at most 64 characters")
+    private String cartId;
+    
+    @NotBlank(message = "Item type is required")
+    private String itemType;
+    
+    @NotNull(message = "Item id is required")
+    private Long itemId;
+    
+    @NotNull(message = "Quantity is required")
+    @Positive(message = "Quantity must be positive")
+    private Integer quantity;
+    
+    // Optional; the configured default applies when absent
+    @Positive(message = "TTL must be positive")
+    private Integer ttlSeconds;
+    
+    // Default constructor
+    public ReservationRequest() {}
+    
+    // Getters and Setters
+    public String getCartId() {
+        return cartId;
+    }
+    
+    public void setCartId(String cartId) {
+        this.cartId = cartId;
+    }
+    
+    public String getItemType() {
+        return itemType;
+    }
+    
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+    
+    public Long getItemId() {
+        return itemId;
+    }
+    
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public Integer getTtlSeconds() {
+        return ttlSeconds;
+    }
+    
+    public void setTtlSeconds(Integer ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
@@ -16,6 +16,7 @@ public class SaleRequest {
 
     @NotNull(message = "Amount is required")
     @DecimalMin(value = "0.0", inclusive = false, message = "Amount must be greater than 0")
+    @Digits(integer = 8, fraction = 2, message = "Amount must have at most 8 digits and 2 decimals")
     private BigDecimal amount;
 
     @NotBlank(message = "Status is required")
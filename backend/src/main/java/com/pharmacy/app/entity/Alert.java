@@ -0,0 +1,155 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "alerts",
+        indexes = @Index(name = "idx_alerts_acknowledged", columnList = "acknowledged, created_at"))
+public class Alert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "alert_id")
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType; // sale, payment
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "kind", nullable = false, length = 30)
+    private String kind; // AMOUNT_OUTLIER, DUPLICATE_PAYMENT
+
+    // What the amount was compared with, e.g. "customer John Smith"
+    @Column(name = "scope", nullable = false, length = 150)
+    private String scope;
+
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    // Typical amount for the scope, or the earlier payment's amount for duplicates
+    @Column(name = "expected", precision = 10, scale = 2)
+    private BigDecimal expected;
+
+    @Column(name = "score")
+    private Double score;
+
+    @Column(name = "message", nullable = false, length = 255)
+    private String message;
+
+    @Column(name = "acknowledged", nullable = false)
+    private Boolean acknowledged = false;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Default constructor
+    public Alert() {}
+
+    // Constructor with required fields
+    public Alert(String entityType, Long entityId, String kind, String scope, BigDecimal amount,
+                 BigDecimal expected, Double score, String message) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.kind = kind;
+        this.scope = scope;
+        this.amount = amount;
+        this.expected = expected;
+        this.score = score;
+        this.message = message;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getExpected() {
+        return expected;
+    }
+
+    public void setExpected(BigDecimal expected) {
+        this.expected = expected;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Boolean getAcknowledged() {
+        return acknowledged;
+    }
+
+    public void setAcknowledged(Boolean acknowledged) {
+        this.acknowledged = acknowledged;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,95 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "change_log",
+        indexes = {
+            @Index(name = "idx_change_log_entity", columnList = "entity_type, entity_id"),
+            @Index(name = "idx_change_log_type_version", columnList = "entity_type, version")
+        })
+public class ChangeLogEntry {
+
+    // Monotonically increasing sync version
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "version")
+    private Long version;
+
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "operation", nullable = false, length = 10)
+    private String operation; // UPSERT, DELETE
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    // Default constructor
+    public ChangeLogEntry() {}
+
+    // Constructor with required fields
+    public ChangeLogEntry(String entityType, Long entityId, String operation) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.changedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeLogEntry{" +
+                "version=" + version +
+                ", entityType='" + entityType + '\'' +
+                ", entityId=" + entityId +
+                ", operation='" + operation + '\'' +
+                ", changedAt=" + changedAt +
+                '}';
+    }
+}
@@ -0,0 +1,71 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Distinct-customer HyperLogLog sketch of one day's sales
+@Entity
+@Table(name = "customer_sketches")
+public class CustomerSketch {
+
+    @Id
+    @Column(name = "sketch_day")
+    private LocalDate day;
+
+    // HyperLogLog.toBytes(): sparse pairs for small days, at most 16 KB + 1
+    @Column(name = "registers", nullable = false, length = 16385)
+    private byte[] registers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Guards the read-merge-write of a flush against another instance flushing the same day
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Default constructor
+    public CustomerSketch() {}
+
+    // Constructor with required fields
+    public CustomerSketch(LocalDate day, byte[] registers) {
+        this.day = day;
+        this.registers = registers;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    public void setRegisters(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,109 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Exponentially smoothed daily demand of one medicine, saved so forecasts survive restarts
+@Entity
+@Table(name = "demand_forecasts")
+public class DemandForecast {
+
+    @Id
+    @Column(name = "medicine_id")
+    private Long medicineId;
+
+    // Smoothed units per day and smoothed square of units per day, over closed days
+    @Column(name = "mean_daily", nullable = false)
+    private Double meanDaily;
+
+    @Column(name = "mean_square", nullable = false)
+    private Double meanSquare;
+
+    // Days folded into the averages
+    @Column(name = "observed_days", nullable = false)
+    private Integer observedDays;
+
+    // Open day and the units taken from stock on it so far
+    @Column(name = "current_day", nullable = false)
+    private LocalDate currentDay;
+
+    @Column(name = "current_units", nullable = false)
+    private Integer currentUnits;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public DemandForecast() {}
+
+    // Constructor with required fields
+    public DemandForecast(Long medicineId, Double meanDaily, Double meanSquare, Integer observedDays,
+                          LocalDate currentDay, Integer currentUnits) {
+        this.medicineId = medicineId;
+        this.meanDaily = meanDaily;
+        this.meanSquare = meanSquare;
+        this.observedDays = observedDays;
+        this.currentDay = currentDay;
+        this.currentUnits = currentUnits;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getMedicineId() {
+        return medicineId;
+    }
+
+    public void setMedicineId(Long medicineId) {
+        this.medicineId = medicineId;
+    }
+
+    public Double getMeanDaily() {
+        return meanDaily;
+    }
+
+    public void setMeanDaily(Double meanDaily) {
+        this.meanDaily = meanDaily;
+    }
+
+    public Double getMeanSquare() {
+        return meanSquare;
+    }
+
+    public void setMeanSquare(Double meanSquare) {
+        this.meanSquare = meanSquare;
+    }
+
+    public Integer getObservedDays() {
+        return observedDays;
+    }
+
+    public void setObservedDays(Integer observedDays) {
+        this.observedDays = observedDays;
+    }
+
+    public LocalDate getCurrentDay() {
+        return currentDay;
+    }
+
+    public void setCurrentDay(LocalDate currentDay) {
+        this.currentDay = currentDay;
+    }
+
+    public Integer getCurrentUnits() {
+        return currentUnits;
+    }
+
+    public void setCurrentUnits(Integer currentUnits) {
+        this.currentUnits = currentUnits;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,76 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "dictionary_entries",
+        uniqueConstraints = {
+            @UniqueConstraint(name = "uk_dictionary_code", columnNames = {"domain", "code"}),
+            @UniqueConstraint(name = "uk_dictionary_value", columnNames = {"domain", "value_key"})
+        })
+public class DictionaryEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Encoded column, e.g. sale.status
+    @Column(name = "domain", nullable = false, length = 40)
+    private String domain;
+
+    // Small integer stored in place of the value
+    @Column(name = "code", nullable = false)
+    private Short code;
+
+    // Value as first written
+    @Column(name = "display_value", nullable = false, length = 255)
+    private String value;
+
+    // Lower-cased value; values differing only in case share a code
+    @Column(name = "value_key", nullable = false, length = 255)
+    private String valueKey;
+
+    // Default constructor
+    public DictionaryEntry() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public void setDomain(String domain) {
+        this.domain = domain;
+    }
+
+    public Short getCode() {
+        return code;
+    }
+
+    public void setCode(Short code) {
+        this.code = code;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public String getValueKey() {
+        return valueKey;
+    }
+
+    public void setValueKey(String valueKey) {
+        this.valueKey = valueKey;
+    }
+}
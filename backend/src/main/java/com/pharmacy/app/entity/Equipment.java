@@ -26,6 +26,11 @@ public class Equipment {
     @Column(name = "no_of_equipments", nullable = false)
     private Integer noOfEquipments;
     
+    // Optimistic lock: a write based on a stale read of this row fails instead of overwriting it
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     // Default constructor
     public Equipment() {}
     
@@ -69,6 +74,14 @@ public class Equipment {
         this.noOfEquipments = noOfEquipments;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "Equipment{" +
@@ -1,5 +1,6 @@
 package com.pharmacy.app.entity;
 
+import com.pharmacy.app.converter.MedicineStatusConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -33,7 +34,8 @@ public class Medicine {
     private Integer noOfMedicines;
     
     @NotBlank(message = "Status is required")
-    @Column(name = "status", nullable = false, length = 20)
+    @Convert(converter = MedicineStatusConverter.class)
+    @Column(name = "status_code", nullable = false)
     private String status; // Available, Expired, Low Stock
     
     @NotNull(message = "Expired date is required")
@@ -52,6 +54,11 @@ public class Medicine {
     @Column(name = "description", columnDefinition = "TEXT")
     private String description;
     
+    // Optimistic lock: a write based on a stale read of this row fails instead of overwriting it
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     // Default constructor
     public Medicine() {}
     
@@ -146,6 +153,14 @@ public class Medicine {
         this.description = description;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "Medicine{" +
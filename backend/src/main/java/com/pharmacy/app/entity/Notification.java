@@ -0,0 +1,154 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One digest item in the notification inbox
+@Entity
+@Table(name = "notifications",
+        indexes = @Index(name = "idx_notifications_read", columnList = "is_read, created_at"))
+public class Notification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "notification_id")
+    private Long id;
+
+    @Column(name = "digest_id", nullable = false, length = 36)
+    private String digestId;
+
+    @Column(name = "kind", nullable = false, length = 20)
+    private String kind; // LOW_STOCK, OUT_OF_STOCK, RESTOCKED, EXPIRING, EXPIRED, EXPIRY_CLEARED
+
+    @Column(name = "item_type", nullable = false, length = 20)
+    private String itemType; // medicine, equipment
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "item_name", length = 100)
+    private String itemName;
+
+    @Column(name = "quantity")
+    private Integer quantity;
+
+    @Column(name = "expired_date")
+    private LocalDate expiredDate;
+
+    @Column(name = "message", nullable = false, length = 255)
+    private String message;
+
+    @Column(name = "is_read", nullable = false)
+    private Boolean read = false;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Default constructor
+    public Notification() {}
+
+    // Constructor with required fields
+    public Notification(String digestId, String kind, String itemType, Long itemId, String itemName,
+                        Integer quantity, LocalDate expiredDate, String message) {
+        this.digestId = digestId;
+        this.kind = kind;
+        this.itemType = itemType;
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.quantity = quantity;
+        this.expiredDate = expiredDate;
+        this.message = message;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDigestId() {
+        return digestId;
+    }
+
+    public void setDigestId(String digestId) {
+        this.digestId = digestId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDate getExpiredDate() {
+        return expiredDate;
+    }
+
+    public void setExpiredDate(LocalDate expiredDate) {
+        this.expiredDate = expiredDate;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Boolean getRead() {
+        return read;
+    }
+
+    public void setRead(Boolean read) {
+        this.read = read;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
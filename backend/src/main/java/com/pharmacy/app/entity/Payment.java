@@ -1,5 +1,7 @@
 package com.pharmacy.app.entity;
 
+import com.pharmacy.app.converter.PaymentStatusConverter;
+import com.pharmacy.app.converter.PaymentTypeConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -10,7 +12,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+        indexes = @Index(name = "idx_payments_date", columnList = "date"))
 public class Payment {
     
     @Id
@@ -20,7 +23,8 @@ public class Payment {
     
     @NotBlank(message = "Payment type is required")
     @Size(max = 50, message = "Payment type must not exceed 50 characters")
-    @Column(name = "payment_type", nullable = false, length = 50)
+    @Convert(converter = PaymentTypeConverter.class)
+    @Column(name = "payment_type_code", nullable = false)
     private String paymentType;
     
     @NotNull(message = "Date is required")
@@ -39,7 +43,8 @@ public class Payment {
     
     @NotBlank(message = "Status is required")
     @Size(max = 20, message = "Status must not exceed 20 characters")
-    @Column(name = "status", nullable = false, length = 20)
+    @Convert(converter = PaymentStatusConverter.class)
+    @Column(name = "status_code", nullable = false)
     private String status;
     
     // Default constructor
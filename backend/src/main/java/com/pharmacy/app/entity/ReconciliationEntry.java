@@ -0,0 +1,141 @@
+package com.pharmacy.app.entity;
+
+import com.pharmacy.app.converter.MoneyConverter;
+import com.pharmacy.app.util.Money;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One day of the sales-to-payments reconciliation: the day as a whole when counterparty
+// is null, otherwise one customer or supplier on that day
+@Entity
+@Table(name = "reconciliation_entries",
+        indexes = {
+            @Index(name = "idx_reconciliation_day", columnList = "report_date, counterparty_key"),
+            @Index(name = "idx_reconciliation_counterparty", columnList = "counterparty_key, report_date")
+        })
+public class ReconciliationEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long id;
+
+    @Column(name = "report_date", nullable = false)
+    private LocalDate reportDate;
+
+    @Column(name = "counterparty", length = 255)
+    private String counterparty;
+
+    // Normalized name, so spellings that differ only in case or spacing reconcile together
+    @Column(name = "counterparty_key", length = 255)
+    private String counterpartyKey;
+
+    // Sales received
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "inflow", nullable = false, precision = 15, scale = 2)
+    private Money inflow;
+
+    @Column(name = "inflow_count", nullable = false)
+    private Integer inflowCount;
+
+    // Payments made
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "outflow", nullable = false, precision = 15, scale = 2)
+    private Money outflow;
+
+    @Column(name = "outflow_count", nullable = false)
+    private Integer outflowCount;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "net", nullable = false, precision = 15, scale = 2)
+    private Money net;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Default constructor
+    public ReconciliationEntry() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getReportDate() {
+        return reportDate;
+    }
+
+    public void setReportDate(LocalDate reportDate) {
+        this.reportDate = reportDate;
+    }
+
+    public String getCounterparty() {
+        return counterparty;
+    }
+
+    public void setCounterparty(String counterparty) {
+        this.counterparty = counterparty;
+    }
+
+    public String getCounterpartyKey() {
+        return counterpartyKey;
+    }
+
+    public void setCounterpartyKey(String counterpartyKey) {
+        this.counterpartyKey = counterpartyKey;
+    }
+
+    public Money getInflow() {
+        return inflow;
+    }
+
+    public void setInflow(Money inflow) {
+        this.inflow = inflow;
+    }
+
+    public Integer getInflowCount() {
+        return inflowCount;
+    }
+
+    public void setInflowCount(Integer inflowCount) {
+        this.inflowCount = inflowCount;
+    }
+
+    public Money getOutflow() {
+        return outflow;
+    }
+
+    public void setOutflow(Money outflow) {
+        this.outflow = outflow;
+    }
+
+    public Integer getOutflowCount() {
+        return outflowCount;
+    }
+
+    public void setOutflowCount(Integer outflowCount) {
+        this.outflowCount = outflowCount;
+    }
+
+    public Money getNet() {
+        return net;
+    }
+
+    public void setNet(Money net) {
+        this.net = net;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
@@ -0,0 +1,141 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// State of one report job, shared by every instance so any of them can answer for it
+@Entity
+@Table(name = "report_jobs",
+        indexes = {
+            @Index(name = "idx_report_jobs_expires", columnList = "expires_at")
+        })
+public class ReportJobEntry {
+
+    @Id
+    @Column(name = "job_id", length = 36)
+    private String id;
+
+    @Column(name = "type", nullable = false, length = 20)
+    private String type; // sales, payments
+
+    // Report filters as JSON
+    @Column(name = "parameters", nullable = false, length = 2000)
+    private String parameters;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+
+    @Column(name = "submitted_at", nullable = false)
+    private Instant submittedAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    // Pending jobs expire too, so one left by a stopped instance is not listed forever
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "total_items")
+    private Integer totalItems;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    // Default constructor
+    public ReportJobEntry() {}
+
+    // Constructor with required fields
+    public ReportJobEntry(String id, String type, String parameters, Instant submittedAt, Instant expiresAt) {
+        this.id = id;
+        this.type = type;
+        this.parameters = parameters;
+        this.status = "QUEUED";
+        this.submittedAt = submittedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(String parameters) {
+        this.parameters = parameters;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(Instant submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Integer getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(Integer totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
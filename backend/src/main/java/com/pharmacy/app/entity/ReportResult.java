@@ -0,0 +1,45 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+// Response body of a completed report job, kept apart from report_jobs so listing jobs
+// never reads results
+@Entity
+@Table(name = "report_results")
+public class ReportResult {
+
+    @Id
+    @Column(name = "job_id", length = 36)
+    private String jobId;
+
+    // JSON as served
+    @Lob
+    @Column(name = "body", nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] body;
+
+    // Default constructor
+    public ReportResult() {}
+
+    // Constructor with required fields
+    public ReportResult(String jobId, byte[] body) {
+        this.jobId = jobId;
+        this.body = body;
+    }
+
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+}
@@ -1,12 +1,15 @@
 package com.pharmacy.app.entity;
 
+import com.pharmacy.app.converter.SaleStatusConverter;
+import com.pharmacy.app.converter.SaleTypeConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "sales")
+@Table(name = "sales",
+        indexes = @Index(name = "idx_sales_date", columnList = "date"))
 public class Sale {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -14,7 +17,8 @@ public class Sale {
     private Long saleId;
 
     @NotBlank(message = "Sale type is required")
-    @Column(name = "sale_type", nullable = false)
+    @Convert(converter = SaleTypeConverter.class)
+    @Column(name = "sale_type_code", nullable = false)
     private String saleType;
 
     @NotNull(message = "Date is required")
@@ -31,7 +35,8 @@ public class Sale {
     private BigDecimal amount;
 
     @NotBlank(message = "Status is required")
-    @Column(name = "status", nullable = false)
+    @Convert(converter = SaleStatusConverter.class)
+    @Column(name = "status_code", nullable = false)
     private String status;
 
     // Default constructor
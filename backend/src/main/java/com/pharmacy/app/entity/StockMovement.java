@@ -0,0 +1,99 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// One change to the stock of a medicine or equipment item. Rows are only ever appended
+@Entity
+@Table(name = "stock_movements",
+        indexes = {
+            @Index(name = "idx_stock_movements_item", columnList = "item_type, item_id, movement_id"),
+            @Index(name = "idx_stock_movements_time", columnList = "occurred_at")
+        })
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "movement_id")
+    private Long id;
+
+    @Column(name = "item_type", nullable = false, length = 20)
+    private String itemType; // medicine, equipment
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "movement_type", nullable = false, length = 20)
+    private String movementType; // RECEIPT, SALE, ADJUSTMENT, EXPIRY_WRITE_OFF
+
+    // Signed change in units: positive into stock, negative out of it
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "reference", length = 100)
+    private String reference;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    // Default constructor
+    public StockMovement() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getMovementType() {
+        return movementType;
+    }
+
+    public void setMovementType(String movementType) {
+        this.movementType = movementType;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
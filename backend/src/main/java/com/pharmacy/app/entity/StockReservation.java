@@ -0,0 +1,132 @@
+package com.pharmacy.app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Units of a medicine or equipment item held for a checkout cart until it commits or the hold expires
+@Entity
+@Table(name = "stock_reservations",
+        indexes = {
+            @Index(name = "idx_stock_reservations_status", columnList = "status, expires_at"),
+            @Index(name = "idx_stock_reservations_cart", columnList = "cart_id")
+        })
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "reservation_id")
+    private Long id;
+
+    @Column(name = "cart_id", nullable = false, length = 64)
+    private String cartId;
+
+    @Column(name = "item_type", nullable = false, length = 20)
+    private String itemType; // medicine, equipment
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status; // HELD, COMMITTED, RELEASED, EXPIRED
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Default constructor
+    public StockReservation() {}
+
+    // Constructor with required fields
+    public StockReservation(String cartId, String itemType, Long itemId, Integer quantity, LocalDateTime expiresAt) {
+        this.cartId = cartId;
+        this.itemType = itemType;
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.status = "HELD";
+        this.expiresAt = expiresAt;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCartId() {
+        return cartId;
+    }
+
+    public void setCartId(String cartId) {
+        this.cartId = cartId;
+    }
+
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,5 +1,6 @@
 package com.pharmacy.app.entity;
 
+import com.pharmacy.app.converter.SupplyTypeConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -36,7 +37,8 @@ public class Supplier {
     private String phoneNumber;
     
     @NotBlank(message = "Supply type is required")
-    @Column(name = "supply_type", nullable = false, length = 50)
+    @Convert(converter = SupplyTypeConverter.class)
+    @Column(name = "supply_type_code", nullable = false)
     private String supplyType;
     
     // Default constructor
@@ -0,0 +1,19 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.Alert;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AlertRepository extends JpaRepository<Alert, Long> {
+
+    // Open alerts, newest first
+    Page<Alert> findByAcknowledgedFalseOrderByCreatedAtDesc(Pageable pageable);
+
+    // All alerts, newest first
+    Page<Alert> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    long countByAcknowledgedFalse();
+}
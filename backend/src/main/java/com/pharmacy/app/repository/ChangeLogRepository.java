@@ -0,0 +1,26 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    // Find changes after a sync version, oldest first
+    List<ChangeLogEntry> findByVersionGreaterThanOrderByVersionAsc(Long version, Pageable pageable);
+
+    // Get latest sync version
+    @Query("SELECT COALESCE(MAX(c.version), 0) FROM ChangeLogEntry c")
+    Long getLatestVersion();
+
+    // Get latest sync version recorded before a time
+    @Query("SELECT COALESCE(MAX(c.version), 0) FROM ChangeLogEntry c WHERE c.changedAt < :before")
+    Long getLatestVersionBefore(@Param("before") LocalDateTime before);
+}
@@ -34,6 +34,15 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
            "c.phoneNumber LIKE CONCAT('%', :search, '%'))")
     Page<Customer> findCustomersWithSearch(@Param("search") String search, Pageable pageable);
     
+    // Full text search on name and email (FULLTEXT index ft_customers_search)
+    @Query(value = "SELECT c FROM Customer c WHERE match_against_2(c.customerName, c.email, :terms) > 0",
+           countQuery = "SELECT COUNT(c) FROM Customer c WHERE match_against_2(c.customerName, c.email, :terms) > 0")
+    Page<Customer> findCustomersWithFullText(@Param("terms") String terms, Pageable pageable);
+    
+    // Find all customer names (id, name) for in-memory indexes
+    @Query("SELECT c.id, c.customerName FROM Customer c")
+    List<Object[]> findAllNames();
+    
     // Count customers by gender
     @Query("SELECT COUNT(c) FROM Customer c WHERE c.gender = :gender")
     long countByGender(@Param("gender") String gender);
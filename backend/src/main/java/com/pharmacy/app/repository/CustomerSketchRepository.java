@@ -0,0 +1,15 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.CustomerSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CustomerSketchRepository extends JpaRepository<CustomerSketch, LocalDate> {
+
+    // Sketches of the days in a range
+    List<CustomerSketch> findByDayBetween(LocalDate startDate, LocalDate endDate);
+}
@@ -46,6 +46,11 @@ public interface MedicineRepository extends JpaRepository<Medicine, Long> {
            "LOWER(m.manufacturer) LIKE LOWER(CONCAT('%', :search, '%')))")
     Page<Medicine> findMedicinesWithSearch(@Param("search") String search, Pageable pageable);
     
+    // Full text search on name, type and manufacturer (FULLTEXT index ft_medicines_search)
+    @Query(value = "SELECT m FROM Medicine m WHERE match_against_3(m.medicineName, m.medicineType, m.manufacturer, :terms) > 0",
+           countQuery = "SELECT COUNT(m) FROM Medicine m WHERE match_against_3(m.medicineName, m.medicineType, m.manufacturer, :terms) > 0")
+    Page<Medicine> findMedicinesWithFullText(@Param("terms") String terms, Pageable pageable);
+    
     // Count by status
     long countByStatus(String status);
     
@@ -62,6 +67,10 @@ public interface MedicineRepository extends JpaRepository<Medicine, Long> {
     @Query("SELECT DISTINCT m.medicineType FROM Medicine m ORDER BY m.medicineType")
     List<String> findDistinctMedicineTypes();
     
+    // Find all medicine names (id, name) for in-memory indexes
+    @Query("SELECT m.id, m.medicineName FROM Medicine m")
+    List<Object[]> findAllNames();
+    
     // Find all manufacturers (distinct)
     @Query("SELECT DISTINCT m.manufacturer FROM Medicine m WHERE m.manufacturer IS NOT NULL ORDER BY m.manufacturer")
     List<String> findDistinctManufacturers();
@@ -0,0 +1,25 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.Notification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // Unread notifications, newest first
+    Page<Notification> findByReadFalseOrderByCreatedAtDesc(Pageable pageable);
+
+    // All notifications, newest first
+    Page<Notification> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    long countByReadFalse();
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.read = false")
+    int markAllRead();
+}
@@ -32,12 +32,16 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT p FROM Payment p WHERE p.amount BETWEEN :minAmount AND :maxAmount")
     List<Payment> findByAmountRange(@Param("minAmount") BigDecimal minAmount, @Param("maxAmount") BigDecimal maxAmount);
     
-    // Search payments by payment type, payment by, or status
+    // Search payments by payment type, payment by, or status. Type and status are
+    // dictionary encoded, so callers pass the values that contain the search text
     @Query("SELECT p FROM Payment p WHERE " +
-           "(LOWER(p.paymentType) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "(p.paymentType IN :paymentTypes OR " +
            "LOWER(p.paymentBy) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(p.status) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Payment> findPaymentsWithSearch(@Param("search") String search, Pageable pageable);
+           "p.status IN :statuses)")
+    Page<Payment> findPaymentsWithSearch(@Param("search") String search,
+                                         @Param("paymentTypes") List<String> paymentTypes,
+                                         @Param("statuses") List<String> statuses,
+                                         Pageable pageable);
     
     // Count by status
     long countByStatus(String status);
@@ -53,15 +57,15 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.paymentType = :paymentType")
     BigDecimal getTotalAmountByPaymentType(@Param("paymentType") String paymentType);
     
-    // Find all distinct payment types
-    @Query("SELECT DISTINCT p.paymentType FROM Payment p ORDER BY p.paymentType")
+    // Find all distinct payment types (encoded, so sorted by the caller)
+    @Query("SELECT DISTINCT p.paymentType FROM Payment p")
     List<String> findDistinctPaymentTypes();
     
     // Find all distinct suppliers (payment by)
     @Query("SELECT DISTINCT p.paymentBy FROM Payment p ORDER BY p.paymentBy")
     List<String> findDistinctSuppliers();
     
-    // Find all distinct statuses
-    @Query("SELECT DISTINCT p.status FROM Payment p ORDER BY p.status")
+    // Find all distinct statuses (encoded, so sorted by the caller)
+    @Query("SELECT DISTINCT p.status FROM Payment p")
     List<String> findDistinctStatuses();
 }
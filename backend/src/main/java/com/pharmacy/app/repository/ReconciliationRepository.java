@@ -0,0 +1,38 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.ReconciliationEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ReconciliationRepository extends JpaRepository<ReconciliationEntry, Long> {
+
+    // Whole-day entries in a range, oldest first
+    Page<ReconciliationEntry> findByCounterpartyKeyIsNullAndReportDateBetweenOrderByReportDateAsc(
+        LocalDate startDate, LocalDate endDate, Pageable pageable);
+
+    // Per-counterparty entries of one counterparty, oldest first
+    List<ReconciliationEntry> findByCounterpartyKeyAndReportDateBetweenOrderByReportDateAsc(
+        String counterpartyKey, LocalDate startDate, LocalDate endDate);
+
+    // Range totals: inflow, inflow count, outflow, outflow count, net
+    @Query(value = "SELECT COALESCE(SUM(inflow), 0), COALESCE(SUM(inflow_count), 0), COALESCE(SUM(outflow), 0), " +
+                   "COALESCE(SUM(outflow_count), 0), COALESCE(SUM(net), 0) FROM reconciliation_entries " +
+                   "WHERE counterparty_key IS NULL AND report_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Object[]> getTotals(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Per-counterparty totals over a range, largest absolute net first
+    @Query(value = "SELECT counterparty_key, MIN(counterparty), SUM(inflow), SUM(inflow_count), SUM(outflow), " +
+                   "SUM(outflow_count), SUM(net) FROM reconciliation_entries " +
+                   "WHERE counterparty_key IS NOT NULL AND report_date BETWEEN :startDate AND :endDate " +
+                   "GROUP BY counterparty_key ORDER BY ABS(SUM(net)) DESC", nativeQuery = true)
+    List<Object[]> getCounterpartyTotals(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                         Pageable pageable);
+}
@@ -0,0 +1,15 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.ReportJobEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ReportJobEntryRepository extends JpaRepository<ReportJobEntry, String> {
+
+    // Unexpired jobs, newest first
+    List<ReportJobEntry> findByExpiresAtAfterOrderBySubmittedAtDesc(Instant now);
+}
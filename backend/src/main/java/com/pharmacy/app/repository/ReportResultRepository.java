@@ -0,0 +1,9 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.ReportResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReportResultRepository extends JpaRepository<ReportResult, String> {
+}
@@ -27,6 +27,9 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
     // Find sales by customer (case insensitive)
     List<Sale> findByCustomerContainingIgnoreCaseOrderBySaleIdDesc(String customer);
     
+    // Find sales by customer (case insensitive) with pagination
+    Page<Sale> findByCustomerContainingIgnoreCase(String customer, Pageable pageable);
+    
     // Find sales by date range
     @Query("SELECT s FROM Sale s WHERE s.date BETWEEN :startDate AND :endDate ORDER BY s.saleId DESC")
     List<Sale> findByDateBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
@@ -65,6 +68,14 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
     @Query("SELECT s.saleType, COUNT(s), COALESCE(SUM(s.amount), 0) FROM Sale s GROUP BY s.saleType")
     List<Object[]> getSalesStatistics();
     
+    // Count and total sales per status and sale type dictionary code
+    @Query(value = "SELECT status_code, sale_type_code, COUNT(*), COALESCE(SUM(amount), 0) FROM sales GROUP BY status_code, sale_type_code", nativeQuery = true)
+    List<Object[]> getSalesTotalsByStatusAndTypeCode();
+    
+    // Get sales count per customer
+    @Query("SELECT s.customer, COUNT(s) FROM Sale s GROUP BY s.customer")
+    List<Object[]> getSalesCountByCustomer();
+    
     // Find sales with pagination
     Page<Sale> findAllByOrderBySaleIdDesc(Pageable pageable);
 }
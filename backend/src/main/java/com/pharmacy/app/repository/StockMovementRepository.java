@@ -0,0 +1,14 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.StockMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    // Movements of one item, newest first
+    Page<StockMovement> findByItemTypeAndItemIdOrderByIdDesc(String itemType, Long itemId, Pageable pageable);
+}
@@ -0,0 +1,17 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Every reservation of a cart, oldest first
+    List<StockReservation> findByCartIdOrderByIdAsc(String cartId);
+
+    // Reservations in a status, for recovery at startup
+    List<StockReservation> findByStatus(String status);
+}
@@ -0,0 +1,19 @@
+package com.pharmacy.app.repository;
+
+import com.pharmacy.app.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    // Latest snapshot of an item
+    Optional<StockSnapshot> findFirstByItemTypeAndItemIdOrderByLastMovementIdDesc(String itemType, Long itemId);
+
+    // Latest snapshot of an item taken no later than a point in time
+    Optional<StockSnapshot> findFirstByItemTypeAndItemIdAndAsOfLessThanEqualOrderByLastMovementIdDesc(
+        String itemType, Long itemId, LocalDateTime asOf);
+}
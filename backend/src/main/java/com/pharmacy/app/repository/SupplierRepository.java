@@ -30,14 +30,19 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long> {
            "LOWER(s.email) LIKE LOWER(CONCAT('%', :search, '%')))")
     Page<Supplier> findSuppliersWithSearch(@Param("search") String search, Pageable pageable);
     
+    // Full text search on name, company and email (FULLTEXT index ft_suppliers_search)
+    @Query(value = "SELECT s FROM Supplier s WHERE match_against_3(s.supplierName, s.company, s.email, :terms) > 0",
+           countQuery = "SELECT COUNT(s) FROM Supplier s WHERE match_against_3(s.supplierName, s.company, s.email, :terms) > 0")
+    Page<Supplier> findSuppliersWithFullText(@Param("terms") String terms, Pageable pageable);
+    
     // Check if email exists (for duplicate validation)
     boolean existsByEmail(String email);
     
     // Count by supply type
     long countBySupplyType(String supplyType);
     
-    // Find all distinct supply types
-    @Query("SELECT DISTINCT s.supplyType FROM Supplier s ORDER BY s.supplyType")
+    // Find all distinct supply types (encoded, so sorted by the caller)
+    @Query("SELECT DISTINCT s.supplyType FROM Supplier s")
     List<String> findDistinctSupplyTypes();
     
     // Find all distinct companies
@@ -0,0 +1,24 @@
+package com.pharmacy.app.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Set;
+
+// Equipment is only for the roles EquipmentController lets read it. Endpoints that are open
+// to anonymous callers ask this before returning equipment in what they serve
+public final class EquipmentAccess {
+
+    private static final Set<String> ROLES = Set.of("ROLE_USER", "ROLE_ADMIN", "ROLE_PHARMACIST", "ROLE_MANAGER");
+
+    private EquipmentAccess() {}
+
+    // Whether the caller of the current request may see equipment
+    public static boolean isGranted() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        return authentication.getAuthorities().stream().anyMatch(authority -> ROLES.contains(authority.getAuthority()));
+    }
+}
@@ -0,0 +1,331 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.PaymentResponse;
+import com.pharmacy.app.dto.SaleResponse;
+import com.pharmacy.app.entity.Alert;
+import com.pharmacy.app.repository.AlertRepository;
+import com.pharmacy.app.util.Money;
+import com.pharmacy.app.util.PrefixIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class AnomalyDetectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnomalyDetectionService.class);
+
+    public static final String AMOUNT_OUTLIER = "AMOUNT_OUTLIER";
+    public static final String DUPLICATE_PAYMENT = "DUPLICATE_PAYMENT";
+
+    // Weight of the newest amount in the running mean and variance, roughly the last 20 amounts
+    private static final double ALPHA = 0.1;
+
+    // Amounts a scope must have seen before it can flag anything
+    private static final int MIN_SAMPLES = 8;
+
+    // Standard deviations of log amount from the running mean that count as an outlier
+    private static final double THRESHOLD = 4.0;
+
+    // Floor on the deviation of log amounts so a run of identical amounts does not make every
+    // change an outlier; with the threshold this flags amounts beyond e^(4 * 0.25) = 2.7x typical
+    private static final double MIN_DEVIATION = 0.25;
+
+    private static final int MAX_SCOPES = 100_000;
+    private static final int DUPLICATE_WINDOW_DAYS = 7;
+    private static final int RECENT_PAYMENTS = 16;
+    private static final int PRIME_DAYS = 180;
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private DictionaryService dictionaryService;
+
+    @Autowired
+    private ChangeStreamService changeStreamService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Writers only enqueue; one detector thread owns all state below, so it needs no locks.
+    // When the queue is full events are dropped and counted rather than slowing a write
+    private final ThreadPoolExecutor detector = new ThreadPoolExecutor(
+        1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10_000), r -> {
+            Thread thread = new Thread(r, "anomaly-detector");
+            thread.setDaemon(true);
+            return thread;
+        }, (task, executor) -> dropped.incrementAndGet());
+
+    // Running statistics per scope, least recently used evicted first
+    private final Map<String, Stats> stats = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Stats> eldest) {
+            return size() > MAX_SCOPES;
+        }
+    };
+
+    // Latest payments per supplier as {epoch day, cents, payment id}, for duplicate checks
+    private final Map<String, ArrayDeque<long[]>> recentPayments = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ArrayDeque<long[]>> eldest) {
+            return size() > MAX_SCOPES;
+        }
+    };
+
+    // Learn from recent history before judging new writes, so a restart does not go quiet
+    @EventListener(ApplicationReadyEvent.class)
+    public void prime() {
+        detector.execute(() -> {
+            try {
+                int amounts = primeFromHistory();
+                logger.info("Anomaly detector primed with {} amounts, {} scopes", amounts, stats.size());
+            } catch (SQLException e) {
+                logger.warn("Could not prime anomaly detector: {}", e.getMessage());
+            }
+        });
+    }
+
+    // Queue new and re-priced sales and payments for inspection
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (event.isDelete()) {
+            return;
+        }
+        boolean created = "created".equals(event.getAction());
+        if ("sale".equals(event.getEntity())) {
+            SaleResponse sale = (SaleResponse) event.getRecord();
+            SaleResponse previous = (SaleResponse) event.getPrevious();
+            if (created || (previous != null && previous.getAmount().compareTo(sale.getAmount()) != 0)) {
+                detector.execute(() -> inspect(() -> inspectSale(sale, created)));
+            }
+        } else if ("payment".equals(event.getEntity())) {
+            PaymentResponse payment = (PaymentResponse) event.getRecord();
+            PaymentResponse previous = (PaymentResponse) event.getPrevious();
+            if (created || (previous != null && previous.getAmount().compareTo(payment.getAmount()) != 0)) {
+                detector.execute(() -> inspect(() -> inspectPayment(payment, created)));
+            }
+        }
+    }
+
+    // Alerts, newest first
+    public Page<Alert> getAlerts(int page, int size, boolean openOnly) {
+        PageRequest pageable = PageRequest.of(page, size);
+        return openOnly
+            ? alertRepository.findByAcknowledgedFalseOrderByCreatedAtDesc(pageable)
+            : alertRepository.findAllByOrderByCreatedAtDesc(pageable);
+    }
+
+    public Alert acknowledge(Long id) {
+        Alert alert = alertRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Alert not found with id: " + id));
+        alert.setAcknowledged(true);
+        return alertRepository.save(alert);
+    }
+
+    public long getOpenCount() {
+        return alertRepository.countByAcknowledgedFalse();
+    }
+
+    // Events skipped because the detector fell behind
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        detector.shutdownNow();
+    }
+
+    private void inspect(Runnable check) {
+        try {
+            check.run();
+        } catch (Exception e) {
+            logger.warn("Anomaly check failed: {}", e.getMessage());
+        }
+    }
+
+    private void inspectSale(SaleResponse sale, boolean learn) {
+        short type = dictionaryService.encode(DictionaryService.SALE_TYPE, sale.getSaleType());
+        checkAmount("sale", sale.getSaleId(), sale.getAmount(), learn,
+            "sale.customer:" + PrefixIndex.normalize(sale.getCustomer()), "customer " + sale.getCustomer(),
+            "sale.type:" + type, sale.getSaleType() + " sales");
+    }
+
+    private void inspectPayment(PaymentResponse payment, boolean learn) {
+        short type = dictionaryService.encode(DictionaryService.PAYMENT_TYPE, payment.getPaymentType());
+        String supplier = PrefixIndex.normalize(payment.getPaymentBy());
+        checkAmount("payment", payment.getPaymentId(), payment.getAmount(), learn,
+            "payment.supplier:" + supplier, "payments to " + payment.getPaymentBy(),
+            "payment.type:" + type, payment.getPaymentType() + " payments");
+
+        long day = payment.getDate().toEpochDay();
+        long cents = Money.toCents(payment.getAmount());
+        ArrayDeque<long[]> recent = recentPayments.computeIfAbsent(supplier, key -> new ArrayDeque<>());
+        for (long[] earlier : recent) {
+            if (earlier[1] == cents && earlier[2] != payment.getPaymentId()
+                    && Math.abs(earlier[0] - day) <= DUPLICATE_WINDOW_DAYS) {
+                raise(new Alert("payment", payment.getPaymentId(), DUPLICATE_PAYMENT, payment.getPaymentBy(),
+                    payment.getAmount(), payment.getAmount(), null,
+                    "Payment of " + payment.getAmount() + " to " + payment.getPaymentBy() + " matches payment #"
+                        + earlier[2] + " of " + LocalDate.ofEpochDay(earlier[0])));
+                break;
+            }
+        }
+        if (learn) {
+            rememberPayment(recent, day, cents, payment.getPaymentId());
+        }
+    }
+
+    // Score the amount against each scope and raise one alert for the most extreme.
+    // Scopes are given as key, label pairs
+    private void checkAmount(String entityType, Long entityId, BigDecimal amount, boolean learn, String... scopes) {
+        if (amount == null || amount.signum() <= 0) {
+            return;
+        }
+        double value = Math.log(amount.doubleValue());
+        double worst = 0;
+        String worstScope = null;
+        double typical = 0;
+        for (int i = 0; i < scopes.length; i += 2) {
+            Stats scope = stats.get(scopes[i]);
+            if (scope != null && scope.count >= MIN_SAMPLES) {
+                double score = (value - scope.mean) / scope.deviation();
+                if (Math.abs(score) > Math.abs(worst)) {
+                    worst = score;
+                    worstScope = scopes[i + 1];
+                    typical = Math.exp(scope.mean);
+                }
+            }
+            // Updates were learned when created; learning them again would double count
+            if (learn) {
+                stats.computeIfAbsent(scopes[i], key -> new Stats()).add(value);
+            }
+        }
+
+        if (Math.abs(worst) > THRESHOLD) {
+            BigDecimal expected = BigDecimal.valueOf(typical).setScale(Money.SCALE, RoundingMode.HALF_UP);
+            double ratio = amount.doubleValue() / typical;
+            String comparison = ratio >= 1
+                ? String.format("%.1fx", ratio)
+                : String.format("1/%.1f of", 1 / ratio);
+            raise(new Alert(entityType, entityId, AMOUNT_OUTLIER, worstScope, amount, expected,
+                Math.round(worst * 100) / 100.0,
+                capitalize(entityType) + " amount " + amount + " is " + comparison + " the usual " + expected + " for " + worstScope));
+        }
+    }
+
+    private void raise(Alert alert) {
+        Alert saved = alertRepository.save(alert);
+        logger.info("Alert {} on {} #{}: {}", saved.getKind(), saved.getEntityType(), saved.getEntityId(), saved.getMessage());
+        changeStreamService.publish("alert.created", saved);
+    }
+
+    private void rememberPayment(ArrayDeque<long[]> recent, long day, long cents, long paymentId) {
+        recent.addLast(new long[] {day, cents, paymentId});
+        if (recent.size() > RECENT_PAYMENTS) {
+            recent.removeFirst();
+        }
+    }
+
+    // Feed the last PRIME_DAYS of sales and payments through the statistics, oldest first
+    private int primeFromHistory() throws SQLException {
+        LocalDate since = LocalDate.now().minusDays(PRIME_DAYS);
+        int amounts = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT customer, sale_type_code, amount FROM sales WHERE date >= ? ORDER BY date, sale_id")) {
+                statement.setObject(1, since);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        amounts += learn(rs.getBigDecimal(3),
+                            "sale.customer:" + PrefixIndex.normalize(rs.getString(1)), "sale.type:" + rs.getShort(2));
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT payment_id, payment_by, payment_type_code, amount, date FROM payments WHERE date >= ? ORDER BY date, payment_id")) {
+                statement.setObject(1, since);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        String supplier = PrefixIndex.normalize(rs.getString(2));
+                        BigDecimal amount = rs.getBigDecimal(4);
+                        amounts += learn(amount, "payment.supplier:" + supplier, "payment.type:" + rs.getShort(3));
+                        rememberPayment(recentPayments.computeIfAbsent(supplier, key -> new ArrayDeque<>()),
+                            rs.getDate(5).toLocalDate().toEpochDay(), Money.toCents(amount), rs.getLong(1));
+                    }
+                }
+            }
+        }
+        return amounts;
+    }
+
+    private int learn(BigDecimal amount, String... keys) {
+        if (amount == null || amount.signum() <= 0) {
+            return 0;
+        }
+        double value = Math.log(amount.doubleValue());
+        for (String key : keys) {
+            stats.computeIfAbsent(key, k -> new Stats()).add(value);
+        }
+        return 1;
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    // Exponentially weighted mean and variance of log amounts
+    private static final class Stats {
+        private long count;
+        private double mean;
+        private double variance;
+
+        private void add(double value) {
+            if (count == 0) {
+                mean = value;
+            } else {
+                // Pull outliers back to the threshold first, so one bad entry barely moves the baseline
+                if (count >= MIN_SAMPLES) {
+                    double limit = THRESHOLD * deviation();
+                    value = Math.max(mean - limit, Math.min(mean + limit, value));
+                }
+                double delta = value - mean;
+                mean += ALPHA * delta;
+                variance = (1 - ALPHA) * (variance + ALPHA * delta * delta);
+            }
+            count++;
+        }
+
+        private double deviation() {
+            return Math.max(Math.sqrt(variance), MIN_DEVIATION);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.entity.Customer;
+import com.pharmacy.app.entity.Medicine;
+import com.pharmacy.app.entity.Supplier;
+import com.pharmacy.app.repository.CustomerRepository;
+import com.pharmacy.app.repository.MedicineRepository;
+import com.pharmacy.app.repository.SupplierRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class CatalogSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSearchService.class);
+
+    private static final List<String> FULLTEXT_INDEXES = List.of("ft_medicines_search", "ft_suppliers_search", "ft_customers_search");
+
+    // InnoDB does not index shorter words (innodb_ft_min_token_size), read from the server at startup
+    private int minTokenLength = 3;
+
+    // Words InnoDB leaves out of the index; a required stopword makes a boolean query match nothing
+    private Set<String> stopwords = Set.of();
+
+    @Value("${pharmacy.search.mode:like}")
+    private String searchMode;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private boolean fullText;
+
+    // Use FULLTEXT only on MySQL with every index in place; anything else (H2 included) keeps LIKE
+    @PostConstruct
+    public void init() {
+        if (!"fulltext".equalsIgnoreCase(searchMode)) {
+            return;
+        }
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            if (product == null || !(product.contains("MySQL") || product.contains("MariaDB"))) {
+                logger.warn("Full text search needs MySQL, found {}; using LIKE search", product);
+                return;
+            }
+            Integer indexes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT index_name) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND index_type = 'FULLTEXT' AND index_name IN (?, ?, ?)",
+                Integer.class, FULLTEXT_INDEXES.toArray());
+            if (indexes == null || indexes < FULLTEXT_INDEXES.size()) {
+                logger.warn("FULLTEXT indexes {} missing (see database_setup.sql); using LIKE search", FULLTEXT_INDEXES);
+                return;
+            }
+            minTokenLength = jdbcTemplate.queryForObject("SELECT @@innodb_ft_min_token_size", Integer.class);
+            stopwords = loadStopwords();
+            fullText = true;
+            logger.info("Catalog search using MySQL FULLTEXT indexes (min word length {}, {} stopwords)",
+                minTokenLength, stopwords.size());
+        } catch (Exception e) {
+            logger.warn("Could not check FULLTEXT support, using LIKE search: {}", e.getMessage());
+        }
+    }
+
+    // The stopword list in effect: none when disabled, else the user or server table, else InnoDB's default
+    private Set<String> loadStopwords() {
+        Integer enabled = jdbcTemplate.queryForObject("SELECT @@innodb_ft_enable_stopword", Integer.class);
+        if (enabled == null || enabled == 0) {
+            return Set.of();
+        }
+        String table = jdbcTemplate.queryForObject("SELECT @@innodb_ft_user_stopword_table", String.class);
+        if (table == null || table.isBlank()) {
+            table = jdbcTemplate.queryForObject("SELECT @@innodb_ft_server_stopword_table", String.class);
+        }
+        List<String> words;
+        if (table == null || table.isBlank()) {
+            words = jdbcTemplate.queryForList("SELECT value FROM information_schema.INNODB_FT_DEFAULT_STOPWORD", String.class);
+        } else {
+            // Configured as db_name/table_name
+            String[] parts = table.split("/", 2);
+            words = jdbcTemplate.queryForList("SELECT value FROM `" + parts[0].replace("`", "") + "`.`" +
+                parts[parts.length - 1].replace("`", "") + "`", String.class);
+        }
+        Set<String> stopwords = new HashSet<>();
+        for (String word : words) {
+            stopwords.add(word.toLowerCase());
+        }
+        return stopwords;
+    }
+
+    public boolean isFullText() {
+        return fullText;
+    }
+
+    // Search medicines by name, type or manufacturer
+    public Page<Medicine> searchMedicines(String search, Pageable pageable) {
+        String terms = booleanQuery(search);
+        return terms != null
+            ? medicineRepository.findMedicinesWithFullText(terms, pageable)
+            : medicineRepository.findMedicinesWithSearch(search, pageable);
+    }
+
+    // Search suppliers by name, company or email
+    public Page<Supplier> searchSuppliers(String search, Pageable pageable) {
+        String terms = booleanQuery(search);
+        return terms != null
+            ? supplierRepository.findSuppliersWithFullText(terms, pageable)
+            : supplierRepository.findSuppliersWithSearch(search, pageable);
+    }
+
+    // Search customers by name, email or phone number; phone numbers are not in the index
+    public Page<Customer> searchCustomers(String search, Pageable pageable) {
+        String terms = search.chars().anyMatch(Character::isLetter) ? booleanQuery(search) : null;
+        return terms != null
+            ? customerRepository.findCustomersWithFullText(terms, pageable)
+            : customerRepository.findCustomersWithSearch(search, pageable);
+    }
+
+    // Every word required, each as a prefix: "amox acme" -> "+amox* +acme*". Stopwords are
+    // dropped, as the index never holds them. Null means the search cannot be expressed in full
+    // text (a word too short to be indexed, or nothing but stopwords) and LIKE is used instead
+    private String booleanQuery(String search) {
+        if (!fullText) {
+            return null;
+        }
+        StringBuilder terms = new StringBuilder();
+        for (String word : search.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (word.length() < minTokenLength) {
+                return null;
+            }
+            if (stopwords.contains(word)) {
+                continue;
+            }
+            if (terms.length() > 0) {
+                terms.append(' ');
+            }
+            terms.append('+').append(word).append('*');
+        }
+        return terms.length() > 0 ? terms.toString() : null;
+    }
+}
@@ -0,0 +1,220 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.EquipmentResponse;
+import com.pharmacy.app.dto.MedicineResponse;
+import com.pharmacy.app.entity.ChangeLogEntry;
+import com.pharmacy.app.repository.ChangeLogRepository;
+import com.pharmacy.app.util.IdSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Records are copied in and out, so a caller changing a response never changes the snapshot.
+// Changes made by other nodes are read from change_log on a timer. Commit events and polled
+// rows can arrive in any order, so a record is only replaced by a newer version of itself
+// and a deleted id stays deleted
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private static final int POLL_BATCH = 1000;
+    private static final int MAX_TOMBSTONES = 10000;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    // Null until loaded; callers fall back to the database meanwhile
+    private volatile IdSnapshot<MedicineResponse> medicines;
+    private volatile IdSnapshot<EquipmentResponse> equipment;
+
+    // Writers are serialized so no committed change is lost between two swaps; readers never wait
+    private final Object writeLock = new Object();
+
+    // change_log version the snapshots reflect; -1 until the first load
+    private long lastVersion = -1;
+
+    // Recently deleted ids by entity, so a change delivered after the delete is not applied.
+    // Ids are never reused and late changes arrive within seconds, so the newest few suffice
+    private final Set<String> tombstones = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_TOMBSTONES;
+        }
+    });
+
+    // Fresh reads of changed rows by id, given with each load
+    private Function<List<Long>, Map<Long, MedicineResponse>> medicineRows;
+    private Function<List<Long>, Map<Long, EquipmentResponse>> equipmentRows;
+
+    // Load medicines; the loader runs under the write lock so a change committed
+    // while it reads is applied on top of the result instead of being overwritten
+    public void loadMedicines(Supplier<List<MedicineResponse>> loader,
+                              Function<List<Long>, Map<Long, MedicineResponse>> rows) {
+        synchronized (writeLock) {
+            startPolling();
+            medicineRows = rows;
+            medicines = IdSnapshot.build(loader.get(), MedicineResponse::getId, medicine -> version(medicine.getVersion()),
+                medicine -> typeKey(medicine.getMedicineType()), Comparator.comparing(MedicineResponse::getId));
+            logger.info("Medicine catalog snapshot loaded: {} medicines", medicines.size());
+        }
+    }
+
+    // Load equipment, listed by name like the equipment repository query
+    public void loadEquipment(Supplier<List<EquipmentResponse>> loader,
+                              Function<List<Long>, Map<Long, EquipmentResponse>> rows) {
+        synchronized (writeLock) {
+            startPolling();
+            equipmentRows = rows;
+            equipment = IdSnapshot.build(loader.get(), EquipmentResponse::getId, item -> version(item.getVersion()), item -> null,
+                Comparator.comparing(EquipmentResponse::getEquipmentName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(EquipmentResponse::getId));
+            logger.info("Equipment catalog snapshot loaded: {} items", equipment.size());
+        }
+    }
+
+    // Swap in a new snapshot for every committed catalog change
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (!"medicine".equals(event.getEntity()) && !"equipment".equals(event.getEntity())) {
+            return;
+        }
+        synchronized (writeLock) {
+            String key = event.getEntity() + ":" + event.getId();
+            if (event.isDelete()) {
+                tombstones.add(key);
+            } else if (tombstones.contains(key)) {
+                return;
+            }
+            if ("medicine".equals(event.getEntity()) && medicines != null) {
+                medicines = event.isDelete()
+                    ? medicines.without(event.getId())
+                    : medicines.withRecord(new MedicineResponse((MedicineResponse) event.getRecord()));
+            } else if ("equipment".equals(event.getEntity()) && equipment != null) {
+                equipment = event.isDelete()
+                    ? equipment.without(event.getId())
+                    : equipment.withRecord(new EquipmentResponse((EquipmentResponse) event.getRecord()));
+            }
+        }
+    }
+
+    // Apply changes committed on other nodes. Rows are read fresh, so replaying a change this
+    // node already applied is harmless; a young version gap stops the batch, as in sync, so
+    // a transaction that commits late is not skipped
+    @Scheduled(fixedDelayString = "${pharmacy.catalog.poll-ms:5000}")
+    public void pollChanges() {
+        try {
+            synchronized (writeLock) {
+                if (lastVersion < 0) {
+                    return;
+                }
+                LocalDateTime settledBefore = LocalDateTime.now().minusSeconds(SyncService.SETTLE_SECONDS);
+                while (true) {
+                    List<ChangeLogEntry> entries = changeLogRepository.findByVersionGreaterThanOrderByVersionAsc(
+                        lastVersion, PageRequest.of(0, POLL_BATCH));
+
+                    Set<Long> medicineIds = new LinkedHashSet<>();
+                    Set<Long> equipmentIds = new LinkedHashSet<>();
+                    long version = lastVersion;
+                    boolean gap = false;
+                    for (ChangeLogEntry entry : entries) {
+                        if (entry.getVersion() != version + 1 && entry.getChangedAt().isAfter(settledBefore)) {
+                            gap = true;
+                            break;
+                        }
+                        if ("medicine".equals(entry.getEntityType())) {
+                            medicineIds.add(entry.getEntityId());
+                        } else if ("equipment".equals(entry.getEntityType())) {
+                            equipmentIds.add(entry.getEntityId());
+                        }
+                        version = entry.getVersion();
+                    }
+
+                    medicines = refresh("medicine", medicines, medicineIds, medicineRows);
+                    equipment = refresh("equipment", equipment, equipmentIds, equipmentRows);
+                    lastVersion = version;
+                    if (gap || entries.size() < POLL_BATCH) {
+                        return;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read catalog changes: {}", e.getMessage());
+        }
+    }
+
+    // Medicine by id, or null when not loaded or not in the snapshot
+    public MedicineResponse getMedicine(Long id) {
+        IdSnapshot<MedicineResponse> snapshot = medicines;
+        MedicineResponse medicine = snapshot != null ? snapshot.get(id) : null;
+        return medicine != null ? new MedicineResponse(medicine) : null;
+    }
+
+    // Medicines of a type, or null when not loaded
+    public List<MedicineResponse> getMedicinesByType(String medicineType) {
+        IdSnapshot<MedicineResponse> snapshot = medicines;
+        return snapshot != null ? copy(snapshot.group(typeKey(medicineType)), MedicineResponse::new) : null;
+    }
+
+    // All equipment by name, or null when not loaded
+    public List<EquipmentResponse> getAllEquipment() {
+        IdSnapshot<EquipmentResponse> snapshot = equipment;
+        return snapshot != null ? copy(snapshot.ordered(), EquipmentResponse::new) : null;
+    }
+
+    // Start from the last change old enough to be surely committed when the load reads;
+    // a second load moves back to its own start rather than skip what it may have missed
+    private void startPolling() {
+        long version = changeLogRepository.getLatestVersionBefore(
+            LocalDateTime.now().minusSeconds(SyncService.SETTLE_SECONDS));
+        lastVersion = lastVersion < 0 ? version : Math.min(lastVersion, version);
+    }
+
+    // Re-read changed ids; an id with no row left was deleted
+    private <T> IdSnapshot<T> refresh(String entity, IdSnapshot<T> snapshot, Set<Long> ids,
+                                      Function<List<Long>, Map<Long, T>> rows) {
+        if (snapshot == null || ids.isEmpty()) {
+            return snapshot;
+        }
+        Map<Long, T> found = rows.apply(new ArrayList<>(ids));
+        List<Long> deletes = ids.stream()
+            .filter(id -> !found.containsKey(id))
+            .collect(Collectors.toList());
+        deletes.forEach(id -> tombstones.add(entity + ":" + id));
+        return snapshot.withChanges(found.values(), deletes);
+    }
+
+    // Rows written before versions were kept read as version 0
+    private static long version(Long version) {
+        return version != null ? version : 0;
+    }
+
+    private <T> List<T> copy(List<T> records, Function<T, T> copier) {
+        return records.stream().map(copier).collect(Collectors.toList());
+    }
+
+    // Types compare case-insensitively, as they do under the MySQL collation
+    private String typeKey(String medicineType) {
+        return medicineType != null ? medicineType.toLowerCase(Locale.ROOT) : null;
+    }
+}
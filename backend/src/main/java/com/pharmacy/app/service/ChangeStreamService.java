@@ -0,0 +1,117 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class ChangeStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStreamService.class);
+
+    // Clients reconnect on their own (EventSource retry), so emitters are not kept forever
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Sends happen off the committing thread so a slow client never delays a write
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "change-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Register a new subscriber; equipment changes only reach subscribers allowed to see equipment
+    public SseEmitter subscribe(boolean equipment) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(emitter, equipment);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        try {
+            emitter.send(SseEmitter.event().name("connected").data("ok"));
+        } catch (IOException e) {
+            subscribers.remove(subscriber);
+        }
+        return emitter;
+    }
+
+    // Publish committed changes to all subscribers
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        boolean equipment = "equipment".equals(event.getEntity());
+        dispatcher.execute(() -> broadcast(event.getEntity() + "." + event.getAction(), event, equipment));
+    }
+
+    // Publish an event that is not an entity change, e.g. a finished report job
+    public void publish(String name, Object payload) {
+        if (!subscribers.isEmpty()) {
+            dispatcher.execute(() -> broadcast(name, payload, false));
+        }
+    }
+
+    // Keep idle connections open through proxies
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            dispatcher.execute(() -> broadcast("heartbeat", System.currentTimeMillis(), false));
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void broadcast(String name, Object payload, boolean equipment) {
+        for (Subscriber subscriber : subscribers) {
+            if (equipment && !subscriber.equipment) {
+                continue;
+            }
+            try {
+                subscriber.emitter.send(SseEmitter.event().name(name).data(payload, MediaType.APPLICATION_JSON));
+            } catch (Exception e) {
+                logger.debug("Dropping change stream subscriber: {}", e.getMessage());
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        // Whether the subscriber was allowed to see equipment when it connected
+        private final boolean equipment;
+
+        private Subscriber(SseEmitter emitter, boolean equipment) {
+            this.emitter = emitter;
+            this.equipment = equipment;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.pharmacy.app.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class CollectionVersionService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Version of a collection, read from the change log that every write to it appends to in
+    // its own transaction, so all nodes derive the same version and writers never contend.
+    // A commit can land behind a newer version taken by a faster transaction, so the entries
+    // still young enough for that are counted as well; the pair changes on every commit
+    public String getVersion(String collection) {
+        Timestamp settledBefore = Timestamp.valueOf(LocalDateTime.now().minusSeconds(SyncService.SETTLE_SECONDS));
+        List<Long> settled = jdbcTemplate.queryForList(
+            "SELECT version FROM change_log WHERE entity_type = ? AND changed_at < ? ORDER BY version DESC LIMIT 1",
+            Long.class, collection, settledBefore);
+        long since = settled.isEmpty() ? 0 : settled.get(0);
+        Map<String, Object> recent = jdbcTemplate.queryForMap(
+            "SELECT COUNT(*) AS entries, MAX(version) AS latest FROM change_log WHERE entity_type = ? AND version > ?",
+            collection, since);
+        Number entries = (Number) value(recent, "entries");
+        Number latest = (Number) value(recent, "latest");
+        return (latest != null ? latest.longValue() : since) + "." + entries.longValue();
+    }
+
+    // Build an ETag for a collection in a given representation. Weak, because Tomcat
+    // will not gzip a response with a strong tag and If-None-Match compares weakly anyway
+    public String etag(String collection, String representation) {
+        return "W/\"" + collection + "-" + getVersion(collection) + "-" + representation + "\"";
+    }
+
+    // Set the ETag and report whether the client copy is still current
+    public boolean checkNotModified(WebRequest request, String collection) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        String etag = etag(collection, representation(request.getHeader(HttpHeaders.ACCEPT)));
+        return request.checkNotModified(etag);
+    }
+
+    // JSON, CBOR and Smile bodies of the same version are different representations
+    private String representation(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "json";
+        }
+        String best = "json";
+        double bestQuality = -1;
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                String candidate = null;
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR) && !mediaType.isWildcardSubtype()) {
+                    candidate = "cbor";
+                } else if ("x-jackson-smile".equals(mediaType.getSubtype())) {
+                    candidate = "smile";
+                } else if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    candidate = "json";
+                }
+                if (candidate != null && mediaType.getQualityValue() > bestQuality) {
+                    best = candidate;
+                    bestQuality = mediaType.getQualityValue();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return "json";
+        }
+        return best;
+    }
+
+    // Column labels come back upper-case from some drivers
+    private static Object value(Map<String, Object> row, String column) {
+        Object value = row.get(column);
+        return value != null ? value : row.get(column.toUpperCase(Locale.ROOT));
+    }
+}
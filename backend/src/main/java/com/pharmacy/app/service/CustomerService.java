@@ -1,10 +1,12 @@
 package com.pharmacy.app.service;
 
+import com.pharmacy.app.dto.ChangeEvent;
 import com.pharmacy.app.dto.CustomerRequest;
 import com.pharmacy.app.dto.CustomerResponse;
 import com.pharmacy.app.entity.Customer;
 import com.pharmacy.app.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,16 +16,32 @@ import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
     
+    private static final Set<String> SELECTABLE_FIELDS = Set.of("id", "customerName", "phoneNumber", "email", "gender");
+    
+    private static final List<String> SEARCH_FIELDS = List.of("customerName", "email", "phoneNumber");
+    
     @Autowired
     private CustomerRepository customerRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private SparseFieldsetService sparseFieldsetService;
+    
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+    
     @PersistenceContext
     private EntityManager entityManager;
     
@@ -52,7 +70,9 @@ public class CustomerService {
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(savedCustomer);
+        CustomerResponse response = convertToResponse(savedCustomer);
+        publishChange("created", response, null);
+        return response;
     }
     
     // Update existing customer
@@ -73,6 +93,8 @@ public class CustomerService {
             throw new RuntimeException("Phone number already exists: " + request.getPhoneNumber());
         }
         
+        CustomerResponse previous = convertToResponse(customer);
+        
         // Update customer fields
         customer.setCustomerName(request.getCustomerName());
         customer.setPhoneNumber(request.getPhoneNumber());
@@ -84,7 +106,9 @@ public class CustomerService {
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(updatedCustomer);
+        CustomerResponse response = convertToResponse(updatedCustomer);
+        publishChange("updated", response, previous);
+        return response;
     }
     
     // Get customer by ID
@@ -94,6 +118,12 @@ public class CustomerService {
         return convertToResponse(customer);
     }
     
+    // Get customers by IDs, keyed by ID
+    public Map<Long, CustomerResponse> getCustomersByIds(List<Long> ids) {
+        return customerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Customer::getId, this::convertToResponse));
+    }
+    
     // Get all customers with pagination
     public Page<CustomerResponse> getAllCustomers(int page, int size, String sortBy, String sortDir, String search) {
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
@@ -103,7 +133,7 @@ public class CustomerService {
         
         Page<Customer> customers;
         if (search != null && !search.trim().isEmpty()) {
-            customers = customerRepository.findCustomersWithSearch(search.trim(), pageable);
+            customers = catalogSearchService.searchCustomers(search.trim(), pageable);
         } else {
             customers = customerRepository.findAll(pageable);
         }
@@ -111,6 +141,16 @@ public class CustomerService {
         return customers.map(this::convertToResponse);
     }
     
+    // Get selected customer fields with pagination
+    public Page<Map<String, Object>> getCustomerFields(int page, int size, String sortBy, String sortDir, String search, String fields) {
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        
+        Pageable pageable = PageRequest.of(page, size, sort);
+        List<String> selected = sparseFieldsetService.parseFields(fields, SELECTABLE_FIELDS);
+        return sparseFieldsetService.findPage(Customer.class, selected, SEARCH_FIELDS, search, pageable);
+    }
+    
     // Get customers by gender
     public List<CustomerResponse> getCustomersByGender(String gender) {
         List<Customer> customers = customerRepository.findByGender(gender);
@@ -125,10 +165,14 @@ public class CustomerService {
         Customer customer = customerRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Customer not found with id: " + id));
         
+        CustomerResponse previous = convertToResponse(customer);
+        
         customerRepository.delete(customer);
         
         // Force flush and commit
         entityManager.flush();
+        
+        publishChange("deleted", null, previous);
     }
     
     // Get customer statistics
@@ -140,6 +184,14 @@ public class CustomerService {
         return new CustomerStats(totalCustomers, maleCustomers, femaleCustomers);
     }
     
+    // Publish a compact change event, delivered to listeners after commit
+    private void publishChange(String action, CustomerResponse current, CustomerResponse previous) {
+        CustomerResponse source = current != null ? current : previous;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("customerName", source.getCustomerName());
+        eventPublisher.publishEvent(new ChangeEvent("customer", action, source.getId(), data, current, previous));
+    }
+    
     // Convert Customer entity to CustomerResponse DTO
     private CustomerResponse convertToResponse(Customer customer) {
         return new CustomerResponse(
@@ -0,0 +1,280 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.SaleResponse;
+import com.pharmacy.app.entity.CustomerSketch;
+import com.pharmacy.app.repository.CustomerSketchRepository;
+import com.pharmacy.app.util.HyperLogLog;
+import com.pharmacy.app.util.PrefixIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class CustomerSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSketchService.class);
+
+    // Ten years of days
+    private static final int MAX_DAYS = 3660;
+
+    // Tries of a flush that keeps losing to another instance before the batch waits for the next one
+    private static final int MAX_ATTEMPTS = 5;
+
+    // How long a sale may wait in some instance's pending map before a flush stores it: the
+    // flush interval plus retries and commit lag. A day with a sale change this close to its
+    // sketch's last update may be missing that sale, so startup rebuilds it
+    private static final int UNFLUSHED_SECONDS = 120;
+
+    @Autowired
+    private CustomerSketchRepository customerSketchRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Customers added per day since the last flush
+    private Map<LocalDate, HyperLogLog> pending = new HashMap<>();
+
+    // Flushes of this instance take turns; additions only wait on the pending map
+    private final Object flushLock = new Object();
+
+    // Build sketches for sale days that have none, e.g. sales written before sketches existed,
+    // and rebuild days whose sales changed after their last flush (or just before it, when
+    // another instance flushed), whose pending additions a crash may have lost. The change
+    // log dates every sale change; merging a day in again counts nobody twice
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        Map<LocalDate, HyperLogLog> built = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL buffers the whole result unless asked to stream it row by row
+            boolean mySql = connection.getMetaData().getDatabaseProductName().contains("MySQL");
+            statement.setFetchSize(mySql ? Integer.MIN_VALUE : 5000);
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT s.date, s.customer FROM sales s WHERE NOT EXISTS " +
+                    "(SELECT 1 FROM customer_sketches c WHERE c.sketch_day = s.date) " +
+                    "OR s.date IN (SELECT changed.date FROM change_log l " +
+                    "JOIN sales changed ON changed.sale_id = l.entity_id " +
+                    "JOIN customer_sketches c ON c.sketch_day = changed.date " +
+                    "WHERE l.entity_type = 'sale' AND l.changed_at > TIMESTAMPADD(SECOND, -" + UNFLUSHED_SECONDS + ", c.updated_at))")) {
+                while (rs.next()) {
+                    built.computeIfAbsent(rs.getDate(1).toLocalDate(), day -> new HyperLogLog())
+                        .add(PrefixIndex.normalize(rs.getString(2)));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Could not backfill customer sketches: {}", e.getMessage());
+            return;
+        }
+        if (built.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (Map.Entry<LocalDate, HyperLogLog> entry : built.entrySet()) {
+                pending.merge(entry.getKey(), entry.getValue(), HyperLogLog::merge);
+            }
+        }
+        flush();
+        logger.info("Built customer sketches for {} days in {} ms", built.size(), System.currentTimeMillis() - start);
+    }
+
+    // Count the customer of every committed new or changed sale. A sketch cannot forget, so
+    // a customer stays counted for a day after the sale is deleted or moved to another day
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (!"sale".equals(event.getEntity()) || event.isDelete()) {
+            return;
+        }
+        SaleResponse sale = (SaleResponse) event.getRecord();
+        String customer = PrefixIndex.normalize(sale.getCustomer());
+        synchronized (this) {
+            pending.computeIfAbsent(sale.getDate(), day -> new HyperLogLog()).add(customer);
+        }
+    }
+
+    // Merge pending additions into the stored sketches. A flush of another instance that
+    // wrote a day in between fails the version check (or the insert of a new day); merging
+    // is idempotent, so the batch is merged again into freshly read sketches
+    @Scheduled(fixedDelay = 30000)
+    public void flush() {
+        synchronized (flushLock) {
+            Map<LocalDate, HyperLogLog> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+            }
+
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    save(batch);
+                    return;
+                } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                    if (attempt < MAX_ATTEMPTS) {
+                        logger.debug("Customer sketches changed by another instance, merging again (attempt {})", attempt);
+                        continue;
+                    }
+                    logger.warn("Customer sketches kept changing; retrying later: {}", e.getMessage());
+                } catch (Exception e) {
+                    logger.warn("Could not save customer sketches, retrying later: {}", e.getMessage());
+                }
+                synchronized (this) {
+                    for (Map.Entry<LocalDate, HyperLogLog> entry : batch.entrySet()) {
+                        pending.merge(entry.getKey(), entry.getValue(), HyperLogLog::merge);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private void save(Map<LocalDate, HyperLogLog> batch) {
+        List<CustomerSketch> sketches = new ArrayList<>();
+        Map<LocalDate, CustomerSketch> stored = new HashMap<>();
+        for (CustomerSketch sketch : customerSketchRepository.findAllById(batch.keySet())) {
+            stored.put(sketch.getDay(), sketch);
+        }
+        for (Map.Entry<LocalDate, HyperLogLog> entry : batch.entrySet()) {
+            CustomerSketch sketch = stored.get(entry.getKey());
+            if (sketch == null) {
+                sketch = new CustomerSketch(entry.getKey(), entry.getValue().toBytes());
+            } else {
+                sketch.setRegisters(HyperLogLog.fromBytes(sketch.getRegisters()).merge(entry.getValue()).toBytes());
+                sketch.setUpdatedAt(LocalDateTime.now());
+            }
+            sketches.add(sketch);
+        }
+        customerSketchRepository.saveAll(sketches);
+    }
+
+    // Before beans are destroyed, while the repository can still reach the database.
+    // Anything lost here, or in a crash, is rebuilt from sales at the next startup
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        flush();
+    }
+
+    // Estimated distinct customers per day, week (starting Monday) or month, and over the whole range
+    public UniqueCustomersResult uniqueCustomers(LocalDate startDate, LocalDate endDate, String groupBy) {
+        LocalDate to = endDate != null ? endDate : LocalDate.now();
+        LocalDate from = startDate != null ? startDate : to.minusDays(29);
+        if (from.isAfter(to)) {
+            throw new RuntimeException("startDate must not be after endDate");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new RuntimeException("Date range is limited to " + MAX_DAYS + " days");
+        }
+        String period = groupBy != null ? groupBy.trim().toLowerCase(Locale.ROOT) : "day";
+        if (!period.equals("day") && !period.equals("week") && !period.equals("month")) {
+            throw new RuntimeException("Invalid groupBy: " + groupBy + " (use day, week or month)");
+        }
+
+        Map<LocalDate, HyperLogLog> days = new HashMap<>();
+        for (CustomerSketch sketch : customerSketchRepository.findByDayBetween(from, to)) {
+            days.put(sketch.getDay(), HyperLogLog.fromBytes(sketch.getRegisters()));
+        }
+        synchronized (this) {
+            for (Map.Entry<LocalDate, HyperLogLog> entry : pending.entrySet()) {
+                LocalDate day = entry.getKey();
+                if (!day.isBefore(from) && !day.isAfter(to)) {
+                    days.computeIfAbsent(day, key -> new HyperLogLog()).merge(entry.getValue());
+                }
+            }
+        }
+
+        Map<String, HyperLogLog> periods = new TreeMap<>();
+        HyperLogLog total = new HyperLogLog();
+        for (Map.Entry<LocalDate, HyperLogLog> entry : days.entrySet()) {
+            periods.computeIfAbsent(periodOf(entry.getKey(), period), key -> new HyperLogLog()).merge(entry.getValue());
+            total.merge(entry.getValue());
+        }
+
+        List<PeriodCount> counts = new ArrayList<>();
+        for (Map.Entry<String, HyperLogLog> entry : periods.entrySet()) {
+            counts.add(new PeriodCount(entry.getKey(), entry.getValue().estimate()));
+        }
+        return new UniqueCustomersResult(from, to, period, counts, total.estimate(), days.size());
+    }
+
+    private String periodOf(LocalDate day, String period) {
+        return switch (period) {
+            case "week" -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+            case "month" -> YearMonth.from(day).toString();
+            default -> day.toString();
+        };
+    }
+
+    // Distinct customer estimate of one period
+    public static class PeriodCount {
+        private final String period;
+        private final long uniqueCustomers;
+
+        public PeriodCount(String period, long uniqueCustomers) {
+            this.period = period;
+            this.uniqueCustomers = uniqueCustomers;
+        }
+
+        // Getters
+        public String getPeriod() { return period; }
+        public long getUniqueCustomers() { return uniqueCustomers; }
+    }
+
+    // Inner class for distinct customer results
+    public static class UniqueCustomersResult {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final String groupBy;
+        private final List<PeriodCount> periods;
+        private final long uniqueCustomers;
+        private final int sketchesMerged;
+
+        public UniqueCustomersResult(LocalDate startDate, LocalDate endDate, String groupBy,
+                                     List<PeriodCount> periods, long uniqueCustomers, int sketchesMerged) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.groupBy = groupBy;
+            this.periods = periods;
+            this.uniqueCustomers = uniqueCustomers;
+            this.sketchesMerged = sketchesMerged;
+        }
+
+        // Getters
+        public LocalDate getStartDate() { return startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public String getGroupBy() { return groupBy; }
+        public List<PeriodCount> getPeriods() { return periods; }
+        public long getUniqueCustomers() { return uniqueCustomers; }
+        public int getSketchesMerged() { return sketchesMerged; }
+        public double getStandardError() { return HyperLogLog.STANDARD_ERROR; }
+    }
+}
@@ -0,0 +1,365 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.MedicineResponse;
+import com.pharmacy.app.entity.DemandForecast;
+import com.pharmacy.app.repository.DemandForecastRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class DemandForecastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandForecastService.class);
+
+    private static final int MAX_LIMIT = 1000;
+
+    // Weight of the newest day; 0.1 averages over roughly the last three weeks
+    @Value("${pharmacy.forecast.alpha:0.1}")
+    private double alpha;
+
+    // Days between placing and receiving an order
+    @Value("${pharmacy.forecast.lead-time-days:7}")
+    private int leadTimeDays;
+
+    // Days an order should last beyond the lead time
+    @Value("${pharmacy.forecast.review-days:14}")
+    private int reviewDays;
+
+    // Safety stock in standard deviations of lead-time demand; 1.65 is about a 95% service level
+    @Value("${pharmacy.forecast.service-z:1.65}")
+    private double serviceZ;
+
+    // Days of history before a medicine gets suggestions
+    @Value("${pharmacy.forecast.min-days:7}")
+    private int minDays;
+
+    @Autowired
+    private DemandForecastRepository demandForecastRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Demand and stock per medicine id. Guarded by this service's lock
+    private final Map<Long, Demand> demands = new HashMap<>();
+
+    // Changed since the last flush
+    private Set<Long> dirty = new HashSet<>();
+    private Set<Long> deleted = new HashSet<>();
+
+    // Every medicine deleted while running; ids are not reused, so a change delivered after
+    // the delete is dropped instead of bringing the medicine back
+    private final Set<Long> tombstones = new HashSet<>();
+
+    private volatile boolean loaded;
+
+    // Restore saved forecasts and read current stock levels once the application is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        Map<Long, DemandForecast> saved = new HashMap<>();
+        try {
+            for (DemandForecast forecast : demandForecastRepository.findAll()) {
+                saved.put(forecast.getMedicineId(), forecast);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read saved demand forecasts, starting empty: {}", e.getMessage());
+        }
+
+        synchronized (this) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // MySQL buffers the whole result unless asked to stream it row by row
+                boolean mySql = connection.getMetaData().getDatabaseProductName().contains("MySQL");
+                statement.setFetchSize(mySql ? Integer.MIN_VALUE : 5000);
+                try (ResultSet rs = statement.executeQuery("SELECT id, medicine_name, no_of_medicines, version FROM medicines")) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        if (tombstones.contains(id)) {
+                            continue;
+                        }
+                        // A change applied before the load may already hold a fresher row
+                        Demand demand = demands.computeIfAbsent(id, key -> restore(saved.get(key)));
+                        demand.apply(rs.getLong(4), rs.getString(2), rs.getInt(3));
+                    }
+                }
+            } catch (SQLException e) {
+                logger.error("Could not load demand forecasts: {}", e.getMessage());
+                return;
+            }
+            loaded = true;
+            logger.info("Demand forecasts loaded: {} medicines, {} with history in {} ms",
+                demands.size(), saved.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    // Every committed sale from a medicine's stock is demand on the day it happens; receipts,
+    // adjustments and write-offs are not. Two commits to one medicine can arrive in either
+    // order: both sales count, and the name and stock come from the higher row version
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onChange(ChangeEvent event) {
+        if (!"medicine".equals(event.getEntity())) {
+            return;
+        }
+        if (event.isDelete()) {
+            tombstones.add(event.getId());
+            demands.remove(event.getId());
+            dirty.remove(event.getId());
+            deleted.add(event.getId());
+            return;
+        }
+        MedicineResponse medicine = (MedicineResponse) event.getRecord();
+        MedicineResponse previous = (MedicineResponse) event.getPrevious();
+        if (tombstones.contains(medicine.getId())) {
+            return;
+        }
+        long today = LocalDate.now().toEpochDay();
+        Demand demand = demands.computeIfAbsent(medicine.getId(), key -> new Demand(today));
+        demand.advance(today, alpha);
+        if (StockLedgerService.SALE.equals(event.getData().get("movementType"))
+                && previous != null && previous.getNoOfMedicines() != null && medicine.getNoOfMedicines() != null
+                && medicine.getNoOfMedicines() < previous.getNoOfMedicines()) {
+            demand.currentUnits += previous.getNoOfMedicines() - medicine.getNoOfMedicines();
+        }
+        demand.apply(medicine.getVersion() != null ? medicine.getVersion() : 0, medicine.getMedicineName(),
+            medicine.getNoOfMedicines() != null ? medicine.getNoOfMedicines() : 0);
+        dirty.add(medicine.getId());
+    }
+
+    // Save changed forecasts; anything lost is only the demand since the last flush
+    @Scheduled(fixedDelay = 60000)
+    public void flush() {
+        List<DemandForecast> changed = new ArrayList<>();
+        Set<Long> removed;
+        synchronized (this) {
+            if (dirty.isEmpty() && deleted.isEmpty()) {
+                return;
+            }
+            for (Long id : dirty) {
+                Demand demand = demands.get(id);
+                if (demand != null) {
+                    changed.add(new DemandForecast(id, demand.mean, demand.meanSquare, demand.observedDays,
+                        LocalDate.ofEpochDay(demand.day), demand.currentUnits));
+                }
+            }
+            removed = deleted;
+            dirty = new HashSet<>();
+            deleted = new HashSet<>();
+        }
+
+        try {
+            demandForecastRepository.saveAll(changed);
+            if (!removed.isEmpty()) {
+                demandForecastRepository.deleteAllByIdInBatch(removed);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not save demand forecasts, retrying later: {}", e.getMessage());
+            synchronized (this) {
+                for (DemandForecast forecast : changed) {
+                    if (demands.containsKey(forecast.getMedicineId())) {
+                        dirty.add(forecast.getMedicineId());
+                    }
+                }
+                deleted.addAll(removed);
+            }
+        }
+    }
+
+    // Before beans are destroyed, while the repository can still reach the database
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        flush();
+    }
+
+    // Medicines at or below their reorder point, fewest days of cover first; all=true ranks every
+    // medicine with demand. Each medicine costs constant time whatever its sales history
+    public synchronized ReorderResult getReorderSuggestions(int limit, boolean all) {
+        if (!loaded) {
+            throw new RuntimeException("Demand forecasts are still loading");
+        }
+        long today = LocalDate.now().toEpochDay();
+        List<Suggestion> suggestions = new ArrayList<>();
+        int learning = 0;
+        for (Map.Entry<Long, Demand> entry : demands.entrySet()) {
+            Demand demand = entry.getValue();
+            demand.advance(today, alpha);
+            if (demand.observedDays < minDays) {
+                learning++;
+                continue;
+            }
+            Suggestion suggestion = suggest(entry.getKey(), demand);
+            if (suggestion != null && (all || suggestion.stock <= suggestion.reorderPoint)) {
+                suggestions.add(suggestion);
+            }
+        }
+        suggestions.sort(Comparator.comparingDouble((Suggestion s) -> s.daysOfCover)
+            .thenComparing(Comparator.comparingDouble((Suggestion s) -> s.dailyDemand).reversed()));
+
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return new ReorderResult(LocalDate.ofEpochDay(today), leadTimeDays, reviewDays,
+            new ArrayList<>(suggestions.subList(0, Math.min(max, suggestions.size()))),
+            suggestions.size(), learning);
+    }
+
+    private Suggestion suggest(long id, Demand demand) {
+        // Bias correction for averages that started from zero a few days ago
+        double weight = 1 - Math.pow(1 - alpha, demand.observedDays);
+        double mean = demand.mean / weight;
+        if (mean <= 0) {
+            return null;
+        }
+        double deviation = Math.sqrt(Math.max(0, demand.meanSquare / weight - mean * mean));
+        double safetyStock = serviceZ * deviation * Math.sqrt(leadTimeDays);
+        int reorderPoint = (int) Math.ceil(mean * leadTimeDays + safetyStock);
+        int orderUpTo = (int) Math.ceil(mean * (leadTimeDays + reviewDays) + safetyStock);
+        int order = demand.stock <= reorderPoint ? Math.max(0, orderUpTo - demand.stock) : 0;
+        return new Suggestion(id, demand.name, demand.stock, mean, deviation, demand.stock / mean,
+            reorderPoint, order);
+    }
+
+    private Demand restore(DemandForecast saved) {
+        long today = LocalDate.now().toEpochDay();
+        if (saved == null) {
+            return new Demand(today);
+        }
+        Demand demand = new Demand(saved.getCurrentDay().toEpochDay());
+        demand.mean = saved.getMeanDaily();
+        demand.meanSquare = saved.getMeanSquare();
+        demand.observedDays = saved.getObservedDays();
+        demand.currentUnits = saved.getCurrentUnits();
+        demand.advance(today, alpha);
+        return demand;
+    }
+
+    // Smoothed demand over closed days plus the units of the open day
+    private static final class Demand {
+        private double mean;
+        private double meanSquare;
+        private int observedDays;
+        private long day;
+        private int currentUnits;
+        private String name;
+        private int stock;
+        // Row version name and stock were read at; -1 until one is seen
+        private long version = -1;
+
+        private Demand(long day) {
+            this.day = day;
+        }
+
+        // Take name and stock from a row unless a later version was already applied
+        private void apply(long rowVersion, String rowName, int rowStock) {
+            if (rowVersion < version) {
+                return;
+            }
+            version = rowVersion;
+            name = rowName;
+            stock = rowStock;
+        }
+
+        // Close the open day and any quiet days after it. A run of k days without demand
+        // scales both averages by (1 - alpha)^k, so a long gap costs the same as one day
+        private void advance(long today, double alpha) {
+            if (today <= day) {
+                return;
+            }
+            mean = alpha * currentUnits + (1 - alpha) * mean;
+            meanSquare = alpha * (double) currentUnits * currentUnits + (1 - alpha) * meanSquare;
+            long quiet = today - day - 1;
+            if (quiet > 0) {
+                double decay = Math.pow(1 - alpha, quiet);
+                mean *= decay;
+                meanSquare *= decay;
+            }
+            observedDays = (int) Math.min(Integer.MAX_VALUE, observedDays + 1 + quiet);
+            day = today;
+            currentUnits = 0;
+        }
+    }
+
+    // Forecast and suggested order of one medicine
+    public static class Suggestion {
+        private final long medicineId;
+        private final String medicineName;
+        private final int stock;
+        private final double dailyDemand;
+        private final double dailyDeviation;
+        private final double daysOfCover;
+        private final int reorderPoint;
+        private final int suggestedQuantity;
+
+        public Suggestion(long medicineId, String medicineName, int stock, double dailyDemand,
+                          double dailyDeviation, double daysOfCover, int reorderPoint, int suggestedQuantity) {
+            this.medicineId = medicineId;
+            this.medicineName = medicineName;
+            this.stock = stock;
+            this.dailyDemand = dailyDemand;
+            this.dailyDeviation = dailyDeviation;
+            this.daysOfCover = daysOfCover;
+            this.reorderPoint = reorderPoint;
+            this.suggestedQuantity = suggestedQuantity;
+        }
+
+        // Getters
+        public long getMedicineId() { return medicineId; }
+        public String getMedicineName() { return medicineName; }
+        public int getStock() { return stock; }
+        public double getDailyDemand() { return Math.round(dailyDemand * 100) / 100.0; }
+        public double getDailyDeviation() { return Math.round(dailyDeviation * 100) / 100.0; }
+        public double getDaysOfCover() { return Math.round(daysOfCover * 10) / 10.0; }
+        public int getReorderPoint() { return reorderPoint; }
+        public int getSuggestedQuantity() { return suggestedQuantity; }
+    }
+
+    // Inner class for reorder suggestion results
+    public static class ReorderResult {
+        private final LocalDate asOf;
+        private final int leadTimeDays;
+        private final int reviewDays;
+        private final List<Suggestion> suggestions;
+        private final int totalSuggestions;
+        private final int learningMedicines;
+
+        public ReorderResult(LocalDate asOf, int leadTimeDays, int reviewDays, List<Suggestion> suggestions,
+                             int totalSuggestions, int learningMedicines) {
+            this.asOf = asOf;
+            this.leadTimeDays = leadTimeDays;
+            this.reviewDays = reviewDays;
+            this.suggestions = suggestions;
+            this.totalSuggestions = totalSuggestions;
+            this.learningMedicines = learningMedicines;
+        }
+
+        // Getters
+        public LocalDate getAsOf() { return asOf; }
+        public int getLeadTimeDays() { return leadTimeDays; }
+        public int getReviewDays() { return reviewDays; }
+        public List<Suggestion> getSuggestions() { return suggestions; }
+        public int getTotalSuggestions() { return totalSuggestions; }
+        // Medicines with fewer than min-days of history, left out until their forecast settles
+        public int getLearningMedicines() { return learningMedicines; }
+    }
+}
@@ -0,0 +1,312 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.entity.Medicine;
+import com.pharmacy.app.entity.Payment;
+import com.pharmacy.app.entity.Sale;
+import com.pharmacy.app.entity.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class DictionaryService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionaryService.class);
+
+    public static final String SALE_STATUS = "sale.status";
+    public static final String SALE_TYPE = "sale.type";
+    public static final String PAYMENT_STATUS = "payment.status";
+    public static final String PAYMENT_TYPE = "payment.type";
+    public static final String MEDICINE_STATUS = "medicine.status";
+    public static final String SUPPLY_TYPE = "supplier.supplyType";
+
+    // Stored for values this dictionary has never seen, e.g. a filter nobody has written yet
+    public static final short UNKNOWN_CODE = -1;
+
+    // Encoded attributes per entity, for queries that must match on values
+    private static final Map<Class<?>, Map<String, String>> ENCODED_ATTRIBUTES = Map.of(
+        Sale.class, Map.of("status", SALE_STATUS, "saleType", SALE_TYPE),
+        Payment.class, Map.of("status", PAYMENT_STATUS, "paymentType", PAYMENT_TYPE),
+        Medicine.class, Map.of("status", MEDICINE_STATUS),
+        Supplier.class, Map.of("supplyType", SUPPLY_TYPE));
+
+    // Pre-encoding VARCHAR columns backfilled at startup: table, old column, new column, domain
+    private static final String[][] LEGACY_COLUMNS = {
+        {"sales", "status", "status_code", SALE_STATUS},
+        {"sales", "sale_type", "sale_type_code", SALE_TYPE},
+        {"payments", "status", "status_code", PAYMENT_STATUS},
+        {"payments", "payment_type", "payment_type_code", PAYMENT_TYPE},
+        {"medicines", "status", "status_code", MEDICINE_STATUS},
+        {"suppliers", "supply_type", "supply_type_code", SUPPLY_TYPE}
+    };
+
+    private static final int MAX_VALUE_LENGTH = 255;
+
+    // A miss reloads from the table at most this often, to pick up values added by other instances
+    private static final long RELOAD_INTERVAL_MS = 1000;
+
+    // Own connections, never the caller's: converters run in the middle of a flush and a
+    // registered value must survive even if the write that introduced it rolls back
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile Map<String, Domain> domains;
+    private volatile long lastReload;
+
+    // Backfill pre-encoding rows and load the dictionary once the schema is up to date
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            migrateLegacyColumns();
+        } catch (SQLException e) {
+            throw new RuntimeException("Dictionary migration failed: " + e.getMessage(), e);
+        }
+        reload();
+        logger.info("Dictionary loaded: {} domains", domains.size());
+    }
+
+    // Code of a value, or UNKNOWN_CODE
+    public short encode(String domain, String value) {
+        Short code = domain(domain).codes.get(key(value));
+        if (code == null && reloadIfStale()) {
+            code = domain(domain).codes.get(key(value));
+        }
+        return code != null ? code : UNKNOWN_CODE;
+    }
+
+    // Value of a code, or null
+    public String decode(String domain, short code) {
+        String value = domain(domain).value(code);
+        if (value == null && code > 0 && reloadIfStale()) {
+            value = domain(domain).value(code);
+        }
+        if (value == null) {
+            logger.warn("No dictionary value for {} code {}", domain, code);
+        }
+        return value;
+    }
+
+    // Make sure a value has a code before it is written; returns the value as stored,
+    // which is the first spelling seen when values differ only in case
+    public String register(String domain, String value) {
+        if (value == null) {
+            return null;
+        }
+        if (domain(domain).codes.containsKey(key(value))) {
+            return canonical(domain, value);
+        }
+        if (value.length() > MAX_VALUE_LENGTH) {
+            throw new RuntimeException("Value too long for " + domain + ": " + value.length() + " characters");
+        }
+        synchronized (this) {
+            reload();
+            if (domain(domain).codes.containsKey(key(value))) {
+                return canonical(domain, value);
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                insert(connection, domain, value);
+            } catch (SQLException e) {
+                // Another instance registered it first
+                logger.debug("Dictionary insert for {} '{}' failed: {}", domain, value, e.getMessage());
+            }
+            reload();
+            if (!domain(domain).codes.containsKey(key(value))) {
+                throw new RuntimeException("Could not register " + domain + " value: " + value);
+            }
+            return canonical(domain, value);
+        }
+    }
+
+    // Values containing the search text, ignoring case, for LIKE-style search on encoded columns
+    public List<String> valuesContaining(String domain, String search) {
+        String needle = key(search.trim());
+        Domain entries = domain(domain);
+        List<String> matches = new ArrayList<>();
+        for (Map.Entry<String, Short> entry : entries.codes.entrySet()) {
+            if (entry.getKey().contains(needle)) {
+                matches.add(entries.value(entry.getValue()));
+            }
+        }
+        return matches;
+    }
+
+    // One past the highest code of a domain, for arrays indexed by code
+    public int codeLimit(String domain) {
+        return domain(domain).values.length;
+    }
+
+    // Domain of an encoded entity attribute, or null when the attribute is stored as is
+    public String domainOf(Class<?> entityClass, String attribute) {
+        Map<String, String> attributes = ENCODED_ATTRIBUTES.get(entityClass);
+        return attributes != null ? attributes.get(attribute) : null;
+    }
+
+    private Domain domain(String name) {
+        if (domains == null) {
+            reload();
+        }
+        return domains.getOrDefault(name, Domain.EMPTY);
+    }
+
+    private String canonical(String name, String value) {
+        Domain domain = domain(name);
+        return domain.value(domain.codes.get(key(value)));
+    }
+
+    private boolean reloadIfStale() {
+        if (System.currentTimeMillis() - lastReload < RELOAD_INTERVAL_MS) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    private synchronized void reload() {
+        Map<String, Map<String, Short>> codes = new HashMap<>();
+        Map<String, Map<Short, String>> values = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT domain, code, display_value, value_key FROM dictionary_entries")) {
+            while (rs.next()) {
+                String domain = rs.getString(1);
+                short code = rs.getShort(2);
+                codes.computeIfAbsent(domain, k -> new HashMap<>()).put(rs.getString(4), code);
+                values.computeIfAbsent(domain, k -> new HashMap<>()).put(code, rs.getString(3));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Could not load dictionary: " + e.getMessage(), e);
+        }
+
+        Map<String, Domain> loaded = new HashMap<>();
+        for (Map.Entry<String, Map<String, Short>> entry : codes.entrySet()) {
+            loaded.put(entry.getKey(), new Domain(entry.getValue(), values.get(entry.getKey())));
+        }
+        domains = loaded;
+        lastReload = System.currentTimeMillis();
+    }
+
+    private void insert(Connection connection, String domain, String value) throws SQLException {
+        short code;
+        try (PreparedStatement max = connection.prepareStatement(
+                "SELECT COALESCE(MAX(code), 0) FROM dictionary_entries WHERE domain = ?")) {
+            max.setString(1, domain);
+            try (ResultSet rs = max.executeQuery()) {
+                rs.next();
+                int next = rs.getInt(1) + 1;
+                if (next > Short.MAX_VALUE) {
+                    throw new RuntimeException("Dictionary " + domain + " is full");
+                }
+                code = (short) next;
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO dictionary_entries (domain, code, display_value, value_key) VALUES (?, ?, ?, ?)")) {
+            insert.setString(1, domain);
+            insert.setShort(2, code);
+            insert.setString(3, value);
+            insert.setString(4, key(value));
+            insert.executeUpdate();
+        }
+    }
+
+    // Rows written before encoding keep their text in the old column and get code 0 when
+    // ddl-auto adds the new one. Encode them, and let the old column accept NULL so inserts work
+    private void migrateLegacyColumns() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean mySql = metaData.getDatabaseProductName().contains("MySQL");
+
+            for (String[] legacy : LEGACY_COLUMNS) {
+                String table = legacy[0];
+                String oldColumn = legacy[1];
+                String codeColumn = legacy[2];
+                String domain = legacy[3];
+
+                Integer size = null;
+                boolean notNull = false;
+                try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, table, oldColumn)) {
+                    if (rs.next()) {
+                        size = rs.getInt("COLUMN_SIZE");
+                        notNull = rs.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls;
+                    }
+                }
+                if (size == null) {
+                    continue;
+                }
+
+                String pending = " WHERE (" + codeColumn + " IS NULL OR " + codeColumn + " = 0) AND " + oldColumn + " IS NOT NULL";
+                List<String> values = new ArrayList<>();
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT DISTINCT " + oldColumn + " FROM " + table + pending)) {
+                    while (rs.next()) {
+                        values.add(rs.getString(1));
+                    }
+                }
+
+                int migrated = 0;
+                for (String value : values) {
+                    register(domain, value);
+                    try (PreparedStatement update = connection.prepareStatement(
+                            "UPDATE " + table + " SET " + codeColumn + " = ?" + pending + " AND LOWER(" + oldColumn + ") = ?")) {
+                        update.setShort(1, encode(domain, value));
+                        update.setString(2, key(value));
+                        migrated += update.executeUpdate();
+                    }
+                }
+                if (migrated > 0) {
+                    logger.info("Encoded {} rows of {}.{} into {}", migrated, table, oldColumn, codeColumn);
+                }
+
+                if (notNull && mySql) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("ALTER TABLE " + table + " MODIFY " + oldColumn + " VARCHAR(" + size + ") NULL");
+                    }
+                    logger.info("{}.{} is no longer written; made nullable (drop it once verified)", table, oldColumn);
+                }
+            }
+        }
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Domain {
+        private static final Domain EMPTY = new Domain(Map.of(), Map.of());
+
+        private final Map<String, Short> codes;
+        private final String[] values;
+
+        private Domain(Map<String, Short> codes, Map<Short, String> valuesByCode) {
+            this.codes = codes;
+            int max = valuesByCode.keySet().stream().mapToInt(Short::intValue).max().orElse(0);
+            this.values = new String[max + 1];
+            for (Map.Entry<Short, String> entry : valuesByCode.entrySet()) {
+                if (entry.getKey() > 0) {
+                    values[entry.getKey()] = entry.getValue();
+                }
+            }
+        }
+
+        private String value(short code) {
+            return code > 0 && code < values.length ? values[code] : null;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.pharmacy.app.service;
 
+import com.pharmacy.app.dto.ChangeEvent;
 import com.pharmacy.app.dto.EquipmentRequest;
 import com.pharmacy.app.dto.EquipmentResponse;
 import com.pharmacy.app.entity.Equipment;
 import com.pharmacy.app.repository.EquipmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,7 +16,9 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +27,15 @@ public class EquipmentService {
     @Autowired
     private EquipmentRepository equipmentRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+    
+    @Autowired
+    private StockMutationManager stockMutationManager;
+    
     // Create new equipment
     @Transactional
     public EquipmentResponse createEquipment(EquipmentRequest request) {
@@ -36,12 +51,17 @@ public class EquipmentService {
         equipment.setNoOfEquipments(request.getNoOfEquipments());
         
         Equipment savedEquipment = equipmentRepository.save(equipment);
-        return convertToResponse(savedEquipment);
+        EquipmentResponse response = convertToResponse(savedEquipment);
+        publishChange("created", response, null);
+        return response;
     }
     
-    // Update equipment
-    @Transactional
+    // Update equipment; serialized with other stock writes to it
     public EquipmentResponse updateEquipment(Long id, EquipmentRequest request) {
+        return stockMutationManager.mutate(StockLedgerService.EQUIPMENT, id, () -> applyUpdate(id, request));
+    }
+    
+    private EquipmentResponse applyUpdate(Long id, EquipmentRequest request) {
         Equipment equipment = equipmentRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Equipment not found with id: " + id));
         
@@ -58,13 +78,53 @@ public class EquipmentService {
                                      "' and model '" + request.getModel() + "' already exists");
         }
         
+        EquipmentResponse previous = convertToResponse(equipment);
+        
         // Update equipment fields
         equipment.setEquipmentName(request.getEquipmentName());
         equipment.setModel(request.getModel());
         equipment.setNoOfEquipments(request.getNoOfEquipments());
         
-        Equipment updatedEquipment = equipmentRepository.save(equipment);
-        return convertToResponse(updatedEquipment);
+        // Flushed so the response carries the version this write commits
+        Equipment updatedEquipment = equipmentRepository.saveAndFlush(equipment);
+        EquipmentResponse response = convertToResponse(updatedEquipment);
+        publishChange("updated", response, previous);
+        return response;
+    }
+    
+    // Update equipment stock, recording the movement type (receipt, sale, adjustment) in the ledger.
+    // Writes to one item run one at a time, and rerun if another node changed it first
+    public EquipmentResponse updateEquipmentStock(Long id, Integer newQuantity, String movementType, String reference) {
+        return stockMutationManager.mutate(StockLedgerService.EQUIPMENT, id,
+            () -> applyStock(id, newQuantity, movementType, reference));
+    }
+    
+    private EquipmentResponse applyStock(Long id, Integer newQuantity, String movementType, String reference) {
+        Equipment equipment = equipmentRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Equipment not found with id: " + id));
+        
+        EquipmentResponse previous = convertToResponse(equipment);
+        String type = StockLedgerService.resolveMovementType(movementType, newQuantity - equipment.getNoOfEquipments());
+        
+        equipment.setNoOfEquipments(newQuantity);
+        // Flushed so the response carries the version this write commits
+        Equipment updatedEquipment = equipmentRepository.saveAndFlush(equipment);
+        EquipmentResponse response = convertToResponse(updatedEquipment);
+        Map<String, Object> movement = new LinkedHashMap<>();
+        movement.put("movementType", type);
+        if (reference != null && !reference.isBlank()) {
+            movement.put("reference", reference.trim());
+        }
+        publishChange("stock", response, previous, movement);
+        return response;
+    }
+    
+    // Load the catalog snapshot that serves the full equipment list
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalogSnapshot() {
+        catalogSnapshotService.loadEquipment(() -> equipmentRepository.findAll().stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList()), this::getEquipmentByIds);
     }
     
     // Get equipment by ID
@@ -75,6 +135,12 @@ public class EquipmentService {
         return convertToResponse(equipment);
     }
     
+    // Get equipment by IDs, keyed by ID
+    public Map<Long, EquipmentResponse> getEquipmentByIds(List<Long> ids) {
+        return equipmentRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Equipment::getId, this::convertToResponse));
+    }
+    
     // Get all equipment with pagination and search
     public Page<EquipmentResponse> getAllEquipment(int page, int size, String sortBy, String sortDir, String search) {
         Sort sort = sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
@@ -94,6 +160,10 @@ public class EquipmentService {
     
     // Get all equipment (without pagination)
     public List<EquipmentResponse> getAllEquipment() {
+        List<EquipmentResponse> cached = catalogSnapshotService.getAllEquipment();
+        if (cached != null) {
+            return cached;
+        }
         List<Equipment> equipment = equipmentRepository.findAll(Sort.by(Sort.Direction.ASC, "equipmentName"));
         return equipment.stream()
                 .map(this::convertToResponse)
@@ -101,13 +171,20 @@ public class EquipmentService {
     }
     
     // Delete equipment
-    @Transactional
     public void deleteEquipment(Long id) {
-        if (!equipmentRepository.existsById(id)) {
-            throw new RuntimeException("Equipment not found with id: " + id);
-        }
+        stockMutationManager.mutate(StockLedgerService.EQUIPMENT, id, () -> {
+            applyDelete(id);
+            return null;
+        });
+    }
+    
+    private void applyDelete(Long id) {
+        Equipment equipment = equipmentRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Equipment not found with id: " + id));
         
-        equipmentRepository.deleteById(id);
+        EquipmentResponse previous = convertToResponse(equipment);
+        equipmentRepository.delete(equipment);
+        publishChange("deleted", null, previous);
     }
     
     // Search equipment by name
@@ -143,14 +220,33 @@ public class EquipmentService {
         return new EquipmentStats(totalEquipmentTypes, totalEquipmentCount, lowStockCount);
     }
     
+    // Publish a compact change event, delivered to listeners after commit
+    private void publishChange(String action, EquipmentResponse current, EquipmentResponse previous) {
+        publishChange(action, current, previous, Map.of());
+    }
+    
+    private void publishChange(String action, EquipmentResponse current, EquipmentResponse previous, Map<String, Object> extra) {
+        EquipmentResponse source = current != null ? current : previous;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("equipmentName", source.getEquipmentName());
+        data.put("noOfEquipments", current != null ? current.getNoOfEquipments() : null);
+        if (previous != null) {
+            data.put("previousNoOfEquipments", previous.getNoOfEquipments());
+        }
+        data.putAll(extra);
+        eventPublisher.publishEvent(new ChangeEvent("equipment", action, source.getId(), data, current, previous));
+    }
+    
     // Convert Equipment entity to EquipmentResponse DTO
     private EquipmentResponse convertToResponse(Equipment equipment) {
-        return new EquipmentResponse(
+        EquipmentResponse response = new EquipmentResponse(
             equipment.getId(),
             equipment.getEquipmentName(),
             equipment.getModel(),
             equipment.getNoOfEquipments()
         );
+        response.setVersion(equipment.getVersion());
+        return response;
     }
     
     // Equipment statistics inner class
@@ -0,0 +1,45 @@
+package com.pharmacy.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.app.dto.NotificationDigest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Appends each digest as one JSON line to a local file; disabled while the path is empty
+@Service
+public class FileNotificationSink implements NotificationSink {
+
+    @Value("${pharmacy.notifications.file:}")
+    private String file;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return file != null && !file.isBlank();
+    }
+
+    @Override
+    public void deliver(NotificationDigest digest) throws IOException {
+        Path path = Paths.get(file.trim());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        String line = objectMapper.writeValueAsString(digest) + System.lineSeparator();
+        Files.write(path, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
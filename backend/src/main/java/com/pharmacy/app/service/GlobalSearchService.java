@@ -0,0 +1,146 @@
+package com.pharmacy.app.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+@Service
+public class GlobalSearchService {
+
+    private static final int MAX_LIMIT = 20;
+    private static final long MIN_BUDGET_MS = 50;
+    private static final long MAX_BUDGET_MS = 2000;
+
+    @Autowired
+    private MedicineService medicineService;
+
+    @Autowired
+    private EquipmentService equipmentService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    // One slot per source for a few concurrent searches; beyond that a source is skipped
+    // rather than queued, so a burst of searches cannot pile up behind a slow database
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        6, 6, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(24), r -> {
+            Thread thread = new Thread(r, "global-search");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+    // Query every entity in parallel and keep whatever answers within the budget.
+    // Equipment is searched only for callers allowed to read it
+    public SearchResult search(String query, int limit, long budgetMs, boolean equipment) {
+        String term = query.trim();
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        long budget = Math.max(MIN_BUDGET_MS, Math.min(budgetMs, MAX_BUDGET_MS));
+        long start = System.nanoTime();
+
+        Map<String, BiFunction<String, Integer, Page<?>>> sources = new LinkedHashMap<>();
+        sources.put("medicines", (q, k) -> medicineService.getAllMedicines(0, k, "id", "desc", q));
+        if (equipment) {
+            sources.put("equipment", (q, k) -> equipmentService.getAllEquipment(0, k, "id", "desc", q));
+        }
+        sources.put("customers", (q, k) -> customerService.getAllCustomers(0, k, "id", "desc", q));
+        sources.put("suppliers", (q, k) -> supplierService.getAllSuppliers(0, k, "supplierId", "desc", q));
+        sources.put("sales", (q, k) -> saleService.searchSalesByCustomer(q, 0, k));
+        sources.put("payments", (q, k) -> paymentService.getAllPayments(0, k, "paymentId", "desc", q));
+
+        SearchResult result = new SearchResult(term);
+        Map<String, Future<Page<?>>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, BiFunction<String, Integer, Page<?>>> source : sources.entrySet()) {
+            try {
+                futures.put(source.getKey(), executor.submit(() -> source.getValue().apply(term, size)));
+            } catch (RejectedExecutionException e) {
+                result.skipped.add(source.getKey());
+            }
+        }
+
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budget);
+        for (Map.Entry<String, Future<Page<?>>> entry : futures.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                Page<?> page = entry.getValue().get(remaining, TimeUnit.NANOSECONDS);
+                result.results.put(entry.getKey(), new TypeResult(page.getTotalElements(), page.getContent()));
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                result.timedOut.add(entry.getKey());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                result.failed.put(entry.getKey(), cause.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                entry.getValue().cancel(true);
+                result.timedOut.add(entry.getKey());
+            }
+        }
+
+        result.tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Results of one search; partial when any source timed out, failed or was skipped
+    public static class SearchResult {
+        private final String query;
+        private final Map<String, TypeResult> results = new LinkedHashMap<>();
+        private final List<String> timedOut = new ArrayList<>();
+        private final List<String> skipped = new ArrayList<>();
+        private final Map<String, String> failed = new LinkedHashMap<>();
+        private long tookMs;
+
+        public SearchResult(String query) {
+            this.query = query;
+        }
+
+        public String getQuery() { return query; }
+        public Map<String, TypeResult> getResults() { return results; }
+        public List<String> getTimedOut() { return timedOut; }
+        public List<String> getSkipped() { return skipped; }
+        public Map<String, String> getFailed() { return failed; }
+        public long getTookMs() { return tookMs; }
+        public boolean isPartial() { return !timedOut.isEmpty() || !skipped.isEmpty() || !failed.isEmpty(); }
+    }
+
+    // Top matches of one entity type and how many matched in total
+    public static class TypeResult {
+        private final long total;
+        private final List<?> items;
+
+        public TypeResult(long total, List<?> items) {
+            this.total = total;
+            this.items = items;
+        }
+
+        public long getTotal() { return total; }
+        public List<?> getItems() { return items; }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.NotificationDigest;
+import com.pharmacy.app.entity.Notification;
+import com.pharmacy.app.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Saves digest items to the notifications table, read through /api/notifications
+@Service
+public class InboxNotificationSink implements NotificationSink {
+
+    @Value("${pharmacy.notifications.inbox.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Override
+    public String getName() {
+        return "inbox";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void deliver(NotificationDigest digest) {
+        List<Notification> notifications = new ArrayList<>();
+        for (NotificationDigest.Item item : digest.getItems()) {
+            notifications.add(new Notification(digest.getId(), item.getKind(), item.getItemType(), item.getItemId(),
+                item.getItemName(), item.getQuantity(), item.getExpiredDate(), item.getMessage()));
+        }
+        notificationRepository.saveAll(notifications);
+    }
+}
@@ -1,11 +1,17 @@
 package com.pharmacy.app.service;
 
+import com.pharmacy.app.dto.ChangeEvent;
 import com.pharmacy.app.dto.MedicineRequest;
 import com.pharmacy.app.dto.MedicineResponse;
 import com.pharmacy.app.entity.Medicine;
 import com.pharmacy.app.repository.MedicineRepository;
+import com.pharmacy.app.util.BkTree;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -15,16 +21,45 @@ import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class MedicineService {
     
+    private static final Set<String> SELECTABLE_FIELDS = Set.of("id", "medicineName", "medicineType", "noOfMedicines", "status", "expiredDate", "price", "batchNumber", "manufacturer", "description");
+    
+    private static final List<String> SEARCH_FIELDS = List.of("medicineName", "medicineType", "manufacturer");
+    
     @Autowired
     private MedicineRepository medicineRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private SparseFieldsetService sparseFieldsetService;
+    
+    @Autowired
+    private DictionaryService dictionaryService;
+    
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+    
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+    
+    @Autowired
+    private NameIndexService nameIndexService;
+    
+    @Autowired
+    private StockMutationManager stockMutationManager;
+    
     @PersistenceContext
     private EntityManager entityManager;
     
@@ -41,7 +76,7 @@ public class MedicineService {
         medicine.setMedicineName(request.getMedicineName());
         medicine.setMedicineType(request.getMedicineType());
         medicine.setNoOfMedicines(request.getNoOfMedicines());
-        medicine.setStatus(request.getStatus());
+        medicine.setStatus(dictionaryService.register(DictionaryService.MEDICINE_STATUS, request.getStatus()));
         medicine.setExpiredDate(request.getExpiredDate());
         if (request.getPrice() != null) {
             medicine.setPrice(request.getPrice());
@@ -61,12 +96,17 @@ public class MedicineService {
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(savedMedicine);
+        MedicineResponse response = convertToResponse(savedMedicine);
+        publishChange("created", response, null);
+        return response;
     }
     
-    // Update existing medicine
-    @Transactional
+    // Update existing medicine; serialized with other stock writes to it
     public MedicineResponse updateMedicine(Long id, MedicineRequest request) {
+        return stockMutationManager.mutate(StockLedgerService.MEDICINE, id, () -> applyUpdate(id, request));
+    }
+    
+    private MedicineResponse applyUpdate(Long id, MedicineRequest request) {
         Medicine medicine = medicineRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Medicine not found with id: " + id));
         
@@ -78,11 +118,13 @@ public class MedicineService {
             }
         }
         
+        MedicineResponse previous = convertToResponse(medicine);
+        
         // Update medicine fields
         medicine.setMedicineName(request.getMedicineName());
         medicine.setMedicineType(request.getMedicineType());
         medicine.setNoOfMedicines(request.getNoOfMedicines());
-        medicine.setStatus(request.getStatus());
+        medicine.setStatus(dictionaryService.register(DictionaryService.MEDICINE_STATUS, request.getStatus()));
         medicine.setExpiredDate(request.getExpiredDate());
         if (request.getPrice() != null) {
             medicine.setPrice(request.getPrice());
@@ -102,16 +144,36 @@ public class MedicineService {
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(updatedMedicine);
+        MedicineResponse response = convertToResponse(updatedMedicine);
+        publishChange("updated", response, previous);
+        return response;
+    }
+    
+    // Load the catalog snapshot that serves lookups by id and type
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalogSnapshot() {
+        catalogSnapshotService.loadMedicines(() -> medicineRepository.findAll().stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList()), this::getMedicinesByIds);
     }
     
     // Get medicine by ID
     public MedicineResponse getMedicineById(Long id) {
+        MedicineResponse cached = catalogSnapshotService.getMedicine(id);
+        if (cached != null) {
+            return cached;
+        }
         Medicine medicine = medicineRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Medicine not found with id: " + id));
         return convertToResponse(medicine);
     }
     
+    // Get medicines by IDs, keyed by ID
+    public Map<Long, MedicineResponse> getMedicinesByIds(List<Long> ids) {
+        return medicineRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Medicine::getId, this::convertToResponse));
+    }
+    
     // Get all medicines with pagination
     public Page<MedicineResponse> getAllMedicines(int page, int size, String sortBy, String sortDir, String search) {
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
@@ -121,7 +183,7 @@ public class MedicineService {
         
         Page<Medicine> medicines;
         if (search != null && !search.trim().isEmpty()) {
-            medicines = medicineRepository.findMedicinesWithSearch(search.trim(), pageable);
+            medicines = catalogSearchService.searchMedicines(search.trim(), pageable);
         } else {
             medicines = medicineRepository.findAll(pageable);
         }
@@ -129,8 +191,43 @@ public class MedicineService {
         return medicines.map(this::convertToResponse);
     }
     
+    // Get medicines matching a possibly misspelt name, closest matches first
+    public Page<MedicineResponse> fuzzySearchMedicines(String search, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        List<BkTree.Hit> hits = nameIndexService.fuzzyMedicines(search);
+        
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + size, hits.size());
+        List<Long> ids = hits.subList(from, to).stream()
+                .map(BkTree.Hit::getId)
+                .collect(Collectors.toList());
+        
+        // Load only the page by primary key and keep the ranking order
+        Map<Long, MedicineResponse> byId = getMedicinesByIds(ids);
+        List<MedicineResponse> content = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        
+        return new PageImpl<>(content, pageable, hits.size());
+    }
+    
+    // Get selected medicine fields with pagination
+    public Page<Map<String, Object>> getMedicineFields(int page, int size, String sortBy, String sortDir, String search, String fields) {
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        
+        Pageable pageable = PageRequest.of(page, size, sort);
+        List<String> selected = sparseFieldsetService.parseFields(fields, SELECTABLE_FIELDS);
+        return sparseFieldsetService.findPage(Medicine.class, selected, SEARCH_FIELDS, search, pageable);
+    }
+    
     // Get medicines by type
     public List<MedicineResponse> getMedicinesByType(String medicineType) {
+        List<MedicineResponse> cached = catalogSnapshotService.getMedicinesByType(medicineType);
+        if (cached != null) {
+            return cached;
+        }
         List<Medicine> medicines = medicineRepository.findByMedicineType(medicineType);
         return medicines.stream()
                 .map(this::convertToResponse)
@@ -138,30 +235,60 @@ public class MedicineService {
     }
     
     // Update medicine stock
-    @Transactional
     public MedicineResponse updateMedicineStock(Long medicineId, Integer newQuantity) {
+        return updateMedicineStock(medicineId, newQuantity, null, null);
+    }
+    
+    // Update medicine stock, recording the movement type (receipt, sale, adjustment, expiry write-off) in the ledger.
+    // Writes to one medicine run one at a time, and rerun if another node changed it first
+    public MedicineResponse updateMedicineStock(Long medicineId, Integer newQuantity, String movementType, String reference) {
+        return stockMutationManager.mutate(StockLedgerService.MEDICINE, medicineId,
+            () -> applyStock(medicineId, newQuantity, movementType, reference));
+    }
+    
+    private MedicineResponse applyStock(Long medicineId, Integer newQuantity, String movementType, String reference) {
         Medicine medicine = medicineRepository.findById(medicineId)
             .orElseThrow(() -> new RuntimeException("Medicine not found with id: " + medicineId));
         
+        MedicineResponse previous = convertToResponse(medicine);
+        String type = StockLedgerService.resolveMovementType(movementType, newQuantity - medicine.getNoOfMedicines());
+        
         medicine.setNoOfMedicines(newQuantity);
         Medicine updatedMedicine = medicineRepository.save(medicine);
         
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(updatedMedicine);
+        MedicineResponse response = convertToResponse(updatedMedicine);
+        Map<String, Object> movement = new LinkedHashMap<>();
+        movement.put("movementType", type);
+        if (reference != null && !reference.isBlank()) {
+            movement.put("reference", reference.trim());
+        }
+        publishChange("stock", response, previous, movement);
+        return response;
     }
     
     // Delete medicine
-    @Transactional
     public void deleteMedicine(Long id) {
+        stockMutationManager.mutate(StockLedgerService.MEDICINE, id, () -> {
+            applyDelete(id);
+            return null;
+        });
+    }
+    
+    private void applyDelete(Long id) {
         Medicine medicine = medicineRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Medicine not found with id: " + id));
         
+        MedicineResponse previous = convertToResponse(medicine);
+        
         medicineRepository.delete(medicine);
         
         // Force flush and commit
         entityManager.flush();
+        
+        publishChange("deleted", null, previous);
     }
     
     // Get low stock medicines (quantity < 10)
@@ -189,6 +316,24 @@ public class MedicineService {
         return new MedicineStats(totalMedicines, lowStockCount, expiredCount);
     }
     
+    // Publish a compact change event, delivered to listeners after commit
+    private void publishChange(String action, MedicineResponse current, MedicineResponse previous) {
+        publishChange(action, current, previous, Map.of());
+    }
+    
+    private void publishChange(String action, MedicineResponse current, MedicineResponse previous, Map<String, Object> extra) {
+        MedicineResponse source = current != null ? current : previous;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("medicineName", source.getMedicineName());
+        data.put("noOfMedicines", current != null ? current.getNoOfMedicines() : null);
+        if (previous != null) {
+            data.put("previousNoOfMedicines", previous.getNoOfMedicines());
+        }
+        data.put("status", source.getStatus());
+        data.putAll(extra);
+        eventPublisher.publishEvent(new ChangeEvent("medicine", action, source.getId(), data, current, previous));
+    }
+    
     // Helper method to convert Medicine entity to MedicineResponse
     private MedicineResponse convertToResponse(Medicine medicine) {
         MedicineResponse response = new MedicineResponse();
@@ -202,6 +347,7 @@ public class MedicineService {
         response.setBatchNumber(medicine.getBatchNumber());
         response.setManufacturer(medicine.getManufacturer());
         response.setDescription(medicine.getDescription());
+        response.setVersion(medicine.getVersion());
         return response;
     }
     
@@ -0,0 +1,188 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.CustomerResponse;
+import com.pharmacy.app.dto.MedicineResponse;
+import com.pharmacy.app.dto.SaleResponse;
+import com.pharmacy.app.repository.CustomerRepository;
+import com.pharmacy.app.repository.MedicineRepository;
+import com.pharmacy.app.repository.SaleRepository;
+import com.pharmacy.app.util.BkTree;
+import com.pharmacy.app.util.PrefixIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class NameIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NameIndexService.class);
+
+    private static final int MAX_LIMIT = 50;
+
+    // Fuzzy matches considered before paging
+    private static final int MAX_FUZZY_RESULTS = 500;
+
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    // Source of truth for rebuilds, kept current from change events
+    private final ConcurrentMap<Long, String> medicineNames = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> customerNames = new ConcurrentHashMap<>();
+
+    // Sales per normalized customer name, used to rank customer suggestions
+    private final ConcurrentMap<String, AtomicLong> customerSaleCounts = new ConcurrentHashMap<>();
+
+    private volatile PrefixIndex medicineIndex = PrefixIndex.empty();
+    private volatile PrefixIndex customerIndex = PrefixIndex.empty();
+    private volatile BkTree medicineTree = BkTree.empty();
+
+    // Bursts of writes collapse into one rebuild
+    private final AtomicBoolean medicineRebuildPending = new AtomicBoolean();
+    private final AtomicBoolean customerRebuildPending = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "name-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Load names and sale counts once the application is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Object[] row : medicineRepository.findAllNames()) {
+            medicineNames.put((Long) row[0], (String) row[1]);
+        }
+        for (Object[] row : customerRepository.findAllNames()) {
+            customerNames.put((Long) row[0], (String) row[1]);
+        }
+        for (Object[] row : saleRepository.getSalesCountByCustomer()) {
+            if (row[0] != null) {
+                saleCounter((String) row[0]).addAndGet((Long) row[1]);
+            }
+        }
+        medicineIndex = PrefixIndex.build(medicineNames);
+        medicineTree = BkTree.build(medicineNames);
+        rebuildCustomers();
+        logger.info("Name indexes loaded: {} medicines, {} customers", medicineNames.size(), customerNames.size());
+    }
+
+    // Apply committed changes
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        switch (event.getEntity()) {
+            case "medicine" -> {
+                if (event.isDelete()) {
+                    medicineNames.remove(event.getId());
+                } else {
+                    medicineNames.put(event.getId(), ((MedicineResponse) event.getRecord()).getMedicineName());
+                }
+                scheduleRebuild(medicineRebuildPending, this::rebuildMedicines);
+            }
+            case "customer" -> {
+                if (event.isDelete()) {
+                    customerNames.remove(event.getId());
+                } else {
+                    customerNames.put(event.getId(), ((CustomerResponse) event.getRecord()).getCustomerName());
+                }
+                scheduleRebuild(customerRebuildPending, this::rebuildCustomers);
+            }
+            case "sale" -> {
+                if (event.getPrevious() != null) {
+                    countSale(((SaleResponse) event.getPrevious()).getCustomer(), -1);
+                }
+                if (event.getRecord() != null) {
+                    countSale(((SaleResponse) event.getRecord()).getCustomer(), 1);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    // Suggest medicines by name prefix
+    public List<PrefixIndex.Match> suggestMedicines(String prefix, int limit) {
+        return medicineIndex.suggest(prefix, clamp(limit));
+    }
+
+    // Medicine ids whose name, or a word of it, is within a few typos of the term; closest first
+    public List<BkTree.Hit> fuzzyMedicines(String term) {
+        String normalized = PrefixIndex.normalize(term);
+        return medicineTree.search(normalized, maxDistance(normalized.length()), MAX_FUZZY_RESULTS);
+    }
+
+    // Suggest customers by name prefix, most frequent buyers first
+    public List<PrefixIndex.Match> suggestCustomers(String prefix, int limit) {
+        return customerIndex.suggest(prefix, clamp(limit));
+    }
+
+    private void rebuildMedicines() {
+        medicineRebuildPending.set(false);
+        medicineIndex = PrefixIndex.build(medicineNames);
+        medicineTree = BkTree.build(medicineNames);
+    }
+
+    // Weights are set after the new index is published, so a sale counted during the build
+    // is either applied to the new index directly or read here
+    private void rebuildCustomers() {
+        customerRebuildPending.set(false);
+        PrefixIndex index = PrefixIndex.build(customerNames);
+        customerIndex = index;
+        index.updateWeights(this::saleCount);
+    }
+
+    private void scheduleRebuild(AtomicBoolean pending, Runnable rebuild) {
+        if (pending.compareAndSet(false, true)) {
+            rebuilder.execute(rebuild);
+        }
+    }
+
+    private AtomicLong saleCounter(String customer) {
+        return customerSaleCounts.computeIfAbsent(PrefixIndex.normalize(customer), key -> new AtomicLong());
+    }
+
+    private void countSale(String customer, int delta) {
+        saleCounter(customer).addAndGet(delta);
+        customerIndex.updateWeight(PrefixIndex.normalize(customer), this::saleCount);
+    }
+
+    private long saleCount(String normalizedName) {
+        AtomicLong count = customerSaleCounts.get(normalizedName);
+        return count != null ? count.get() : 0L;
+    }
+
+    // Short terms get fewer edits so "abc" does not match every three letter word
+    private int maxDistance(int length) {
+        if (length <= 3) {
+            return 0;
+        }
+        return length <= 6 ? 1 : 2;
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,475 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.EquipmentResponse;
+import com.pharmacy.app.dto.MedicineResponse;
+import com.pharmacy.app.dto.NotificationDigest;
+import com.pharmacy.app.entity.Notification;
+import com.pharmacy.app.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class NotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
+    // Stock states, in order of severity
+    private static final int IN_STOCK = 0;
+    private static final int LOW = 1;
+    private static final int OUT = 2;
+
+    // Expiry stages, in order
+    private static final int FRESH = 0;
+    private static final int EXPIRING = 1;
+    private static final int EXPIRED = 2;
+
+    private static final long TICK_SECONDS = 5;
+
+    // Same thresholds as the low-stock pages
+    @Value("${pharmacy.notifications.medicine-low-stock:10}")
+    private int medicineLowStock;
+
+    @Value("${pharmacy.notifications.equipment-low-stock:5}")
+    private int equipmentLowStock;
+
+    @Value("${pharmacy.notifications.expiry-warning-days:30}")
+    private int expiryWarningDays;
+
+    // An item is sent once it has been quiet this long, and at the latest after five windows
+    @Value("${pharmacy.notifications.window-seconds:60}")
+    private int windowSeconds;
+
+    @Value("${pharmacy.notifications.max-digest-items:500}")
+    private int maxDigestItems;
+
+    @Autowired
+    private List<NotificationSink> sinks;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Writers only enqueue; this one thread owns all state below, so it needs no locks
+    private final ScheduledThreadPoolExecutor engine = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "notifications");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Changes waiting for their window to pass, by item key, oldest first
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+    // Medicines by the day their expiry stage next changes, so a tick only looks at the head
+    private final TreeMap<LocalDate, Set<Long>> expiryTimer = new TreeMap<>();
+    private final Map<Long, Expiry> expiries = new HashMap<>();
+
+    // Row version last applied per item. Two commits to one item can be delivered in either
+    // order, so an event older than what was applied is dropped; a deleted item keeps MAX_VALUE
+    private final Map<String, Long> versions = new HashMap<>();
+
+    private final AtomicLong digestsSent = new AtomicLong();
+    private final Map<String, AtomicLong> sinkFailures = new ConcurrentHashMap<>();
+
+    // Schedule the expiry of every medicine not yet expired, then start ticking.
+    // This is the only read of the medicines table; afterwards writes keep the timer current
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        engine.execute(() -> {
+            try {
+                int scheduled = loadExpiries();
+                logger.info("Notification engine started: {} expiry timers, sinks {}", scheduled, enabledSinks());
+            } catch (SQLException e) {
+                logger.warn("Could not load medicine expiries: {}", e.getMessage());
+            }
+        });
+        engine.scheduleWithFixedDelay(this::tick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Watch committed medicine and equipment writes for stock and expiry transitions
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if ("medicine".equals(event.getEntity())) {
+            MedicineResponse current = (MedicineResponse) event.getRecord();
+            MedicineResponse previous = (MedicineResponse) event.getPrevious();
+            engine.execute(() -> onMedicine(event.getId(), current, previous));
+        } else if ("equipment".equals(event.getEntity())) {
+            EquipmentResponse current = (EquipmentResponse) event.getRecord();
+            EquipmentResponse previous = (EquipmentResponse) event.getPrevious();
+            engine.execute(() -> onEquipment(event.getId(), current, previous));
+        }
+    }
+
+    // Send what is pending now rather than dropping it
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        engine.execute(() -> dispatch(true));
+        engine.shutdown();
+        try {
+            engine.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Inbox notifications, newest first
+    public Page<Notification> getNotifications(int page, int size, boolean unreadOnly) {
+        PageRequest pageable = PageRequest.of(page, size);
+        return unreadOnly
+            ? notificationRepository.findByReadFalseOrderByCreatedAtDesc(pageable)
+            : notificationRepository.findAllByOrderByCreatedAtDesc(pageable);
+    }
+
+    public long getUnreadCount() {
+        return notificationRepository.countByReadFalse();
+    }
+
+    public Notification markRead(Long id) {
+        Notification notification = notificationRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Notification not found with id: " + id));
+        notification.setRead(true);
+        return notificationRepository.save(notification);
+    }
+
+    @Transactional
+    public int markAllRead() {
+        return notificationRepository.markAllRead();
+    }
+
+    // Enabled sinks, digests sent and failures per sink
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("sinks", enabledSinks());
+        status.put("digestsSent", digestsSent.get());
+        Map<String, Long> failures = new LinkedHashMap<>();
+        sinkFailures.forEach((name, count) -> failures.put(name, count.get()));
+        status.put("sinkFailures", failures);
+        return status;
+    }
+
+    private void onMedicine(Long id, MedicineResponse current, MedicineResponse previous) {
+        if (!isLatest("medicine", id, current != null ? current.getVersion() : Long.MAX_VALUE)) {
+            return;
+        }
+        if (current == null) {
+            forget("medicine", id);
+            unschedule(id);
+            return;
+        }
+        stockChange("medicine", id, current.getMedicineName(), medicineLowStock,
+            previous != null ? previous.getNoOfMedicines() : null, current.getNoOfMedicines());
+
+        LocalDate today = LocalDate.now();
+        int before = previous != null ? expiryStage(previous.getExpiredDate(), today) : FRESH;
+        int after = expiryStage(current.getExpiredDate(), today);
+        boolean dateChanged = previous != null && !Objects.equals(previous.getExpiredDate(), current.getExpiredDate());
+        if (after > before || (dateChanged && pending.containsKey(key("medicine", id, "expiry")))) {
+            expiryChange(id, current.getMedicineName(), current.getExpiredDate(), before, after);
+        }
+        schedule(id, current.getMedicineName(), current.getExpiredDate(), today);
+    }
+
+    private void onEquipment(Long id, EquipmentResponse current, EquipmentResponse previous) {
+        if (!isLatest("equipment", id, current != null ? current.getVersion() : Long.MAX_VALUE)) {
+            return;
+        }
+        if (current == null) {
+            forget("equipment", id);
+            return;
+        }
+        stockChange("equipment", id, current.getEquipmentName(), equipmentLowStock,
+            previous != null ? previous.getNoOfEquipments() : null, current.getNoOfEquipments());
+    }
+
+    // Record the version of an event unless a newer one was applied; a delete passes MAX_VALUE
+    // and a record without a version is applied as it comes
+    private boolean isLatest(String itemType, Long id, Long version) {
+        if (version == null) {
+            return true;
+        }
+        String key = itemType + ":" + id;
+        Long applied = versions.get(key);
+        if (applied != null && applied >= version) {
+            return false;
+        }
+        versions.put(key, version);
+        return true;
+    }
+
+    // A new item starts from in stock, so one created low is reported too
+    private void stockChange(String itemType, Long id, String name, int threshold, Integer before, Integer after) {
+        int from = before != null ? stockState(before, threshold) : IN_STOCK;
+        int to = stockState(after != null ? after : 0, threshold);
+        String key = key(itemType, id, "stock");
+        if (from == to && !pending.containsKey(key)) {
+            return;
+        }
+        Pending change = pending.computeIfAbsent(key, k -> new Pending(itemType, id, from));
+        change.update(to, name, after, threshold, null);
+    }
+
+    private void expiryChange(Long id, String name, LocalDate expiredDate, int before, int after) {
+        Pending change = pending.computeIfAbsent(key("medicine", id, "expiry"), k -> new Pending("medicine", id, before));
+        change.expiry = true;
+        change.update(after, name, null, null, expiredDate);
+    }
+
+    private void forget(String itemType, Long id) {
+        pending.remove(key(itemType, id, "stock"));
+        pending.remove(key(itemType, id, "expiry"));
+    }
+
+    // Fire the expiry transitions due today, then send items whose window has passed
+    private void tick() {
+        try {
+            LocalDate today = LocalDate.now();
+            while (!expiryTimer.isEmpty() && !expiryTimer.firstKey().isAfter(today)) {
+                for (Long id : expiryTimer.pollFirstEntry().getValue()) {
+                    Expiry expiry = expiries.remove(id);
+                    if (expiry == null) {
+                        continue;
+                    }
+                    int after = expiryStage(expiry.expiredDate, today);
+                    if (after > expiry.stage) {
+                        expiryChange(id, expiry.name, expiry.expiredDate, expiry.stage, after);
+                    }
+                    schedule(id, expiry.name, expiry.expiredDate, today);
+                }
+            }
+            dispatch(false);
+        } catch (RuntimeException e) {
+            logger.error("Notification tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Batch every item that is ready into one digest; force sends everything
+    private void dispatch(boolean force) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime quietSince = now.minusSeconds(windowSeconds);
+        LocalDateTime firstSince = now.minusSeconds(5L * windowSeconds);
+        List<NotificationDigest.Item> items = new ArrayList<>();
+        Iterator<Pending> iterator = pending.values().iterator();
+        while (iterator.hasNext() && items.size() < maxDigestItems) {
+            Pending change = iterator.next();
+            if (!force && change.lastAt.isAfter(quietSince) && change.firstAt.isAfter(firstSince)) {
+                continue;
+            }
+            iterator.remove();
+            // Changes that cancelled out within the window, e.g. sold out and restocked
+            if (change.to != change.from) {
+                items.add(change.toItem());
+            }
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        NotificationDigest digest = new NotificationDigest(UUID.randomUUID().toString(), now, items);
+        for (NotificationSink sink : sinks) {
+            if (!sink.isEnabled()) {
+                continue;
+            }
+            try {
+                sink.deliver(digest);
+            } catch (Exception e) {
+                sinkFailures.computeIfAbsent(sink.getName(), name -> new AtomicLong()).incrementAndGet();
+                logger.warn("Notification sink {} failed for digest {}: {}", sink.getName(), digest.getId(), e.getMessage());
+            } catch (Throwable t) {
+                logger.error("Notification sink {} failed for digest {}", sink.getName(), digest.getId(), t);
+            }
+        }
+        digestsSent.incrementAndGet();
+        logger.debug("Sent notification digest {} with {} items", digest.getId(), items.size());
+    }
+
+    private int loadExpiries() throws SQLException {
+        LocalDate today = LocalDate.now();
+        int scheduled = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT id, medicine_name, expired_date FROM medicines WHERE expired_date >= ?",
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL buffers the whole result unless asked to stream it row by row
+            boolean mySql = connection.getMetaData().getDatabaseProductName().contains("MySQL");
+            statement.setFetchSize(mySql ? Integer.MIN_VALUE : 5000);
+            statement.setObject(1, today);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong(1);
+                    // A write handled before the load has scheduled the fresher date already
+                    if (!expiries.containsKey(id)) {
+                        schedule(id, rs.getString(2), rs.getDate(3).toLocalDate(), today);
+                        scheduled++;
+                    }
+                }
+            }
+        }
+        return scheduled;
+    }
+
+    // Set the timer for the next expiry stage a medicine reaches, if any
+    private void schedule(Long id, String name, LocalDate expiredDate, LocalDate today) {
+        unschedule(id);
+        if (expiredDate == null) {
+            return;
+        }
+        int stage = expiryStage(expiredDate, today);
+        LocalDate due;
+        if (stage == FRESH) {
+            due = expiredDate.minusDays(expiryWarningDays);
+        } else if (stage == EXPIRING) {
+            // Expired once the date has passed, as on the expired medicines page
+            due = expiredDate.plusDays(1);
+        } else {
+            return;
+        }
+        expiries.put(id, new Expiry(name, expiredDate, stage, due));
+        expiryTimer.computeIfAbsent(due, day -> new HashSet<>()).add(id);
+    }
+
+    private void unschedule(Long id) {
+        Expiry expiry = expiries.remove(id);
+        if (expiry != null) {
+            Set<Long> ids = expiryTimer.get(expiry.due);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                expiryTimer.remove(expiry.due);
+            }
+        }
+    }
+
+    private int expiryStage(LocalDate expiredDate, LocalDate today) {
+        if (expiredDate == null) {
+            return FRESH;
+        }
+        if (expiredDate.isBefore(today)) {
+            return EXPIRED;
+        }
+        return expiredDate.minusDays(expiryWarningDays).isAfter(today) ? FRESH : EXPIRING;
+    }
+
+    private static int stockState(int quantity, int threshold) {
+        if (quantity <= 0) {
+            return OUT;
+        }
+        return quantity < threshold ? LOW : IN_STOCK;
+    }
+
+    private static String key(String itemType, Long id, String aspect) {
+        return itemType + ":" + id + ":" + aspect;
+    }
+
+    private List<String> enabledSinks() {
+        List<String> names = new ArrayList<>();
+        for (NotificationSink sink : sinks) {
+            if (sink.isEnabled()) {
+                names.add(sink.getName());
+            }
+        }
+        return names;
+    }
+
+    // Changes to one aspect of one item within the current window
+    private static final class Pending {
+        private final String itemType;
+        private final Long itemId;
+        private final int from;
+        private final LocalDateTime firstAt = LocalDateTime.now();
+        private LocalDateTime lastAt;
+        private boolean expiry;
+        private int to;
+        private int events;
+        private String name;
+        private Integer quantity;
+        private Integer threshold;
+        private LocalDate expiredDate;
+
+        private Pending(String itemType, Long itemId, int from) {
+            this.itemType = itemType;
+            this.itemId = itemId;
+            this.from = from;
+        }
+
+        private void update(int to, String name, Integer quantity, Integer threshold, LocalDate expiredDate) {
+            this.to = to;
+            this.name = name;
+            this.quantity = quantity;
+            this.threshold = threshold;
+            this.expiredDate = expiredDate;
+            this.lastAt = LocalDateTime.now();
+            this.events++;
+        }
+
+        private NotificationDigest.Item toItem() {
+            String kind;
+            String message;
+            if (expiry) {
+                kind = to == EXPIRED ? "EXPIRED" : to == EXPIRING ? "EXPIRING" : "EXPIRY_CLEARED";
+                message = switch (to) {
+                    case EXPIRED -> name + " expired on " + expiredDate;
+                    case EXPIRING -> name + " expires on " + expiredDate;
+                    default -> name + " no longer expires soon (" + expiredDate + ")";
+                };
+            } else {
+                kind = to == OUT ? "OUT_OF_STOCK" : to == LOW ? "LOW_STOCK" : "RESTOCKED";
+                message = switch (to) {
+                    case OUT -> name + " is out of stock";
+                    case LOW -> name + " is low on stock: " + quantity + " left (threshold " + threshold + ")";
+                    default -> name + " is back in stock: " + quantity;
+                };
+            }
+            return new NotificationDigest.Item(kind, itemType, itemId, name, quantity, threshold, expiredDate,
+                events, firstAt, lastAt, message);
+        }
+    }
+
+    // Next expiry transition of one medicine
+    private static final class Expiry {
+        private final String name;
+        private final LocalDate expiredDate;
+        private final int stage;
+        private final LocalDate due;
+
+        private Expiry(String name, LocalDate expiredDate, int stage, LocalDate due) {
+            this.name = name;
+            this.expiredDate = expiredDate;
+            this.stage = stage;
+            this.due = due;
+        }
+    }
+}
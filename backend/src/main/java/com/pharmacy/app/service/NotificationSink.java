@@ -0,0 +1,14 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.NotificationDigest;
+
+// Destination for notification digests. Every enabled sink gets every digest; a failing
+// sink is logged and does not stop delivery to the others
+public interface NotificationSink {
+
+    String getName();
+
+    boolean isEnabled();
+
+    void deliver(NotificationDigest digest) throws Exception;
+}
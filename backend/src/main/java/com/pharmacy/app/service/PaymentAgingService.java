@@ -0,0 +1,351 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.PaymentResponse;
+import com.pharmacy.app.util.Money;
+import com.pharmacy.app.util.PrefixIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class PaymentAgingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentAgingService.class);
+
+    private static final String PENDING = "Pending";
+
+    // Upper age in days of each bucket but the last, which has no upper bound
+    private static final int[] BUCKET_LIMITS = {30, 60, 90};
+    private static final String[] BUCKET_LABELS = {"0-30", "31-60", "61-90", "90+"};
+    private static final int BUCKETS = BUCKET_LABELS.length;
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DictionaryService dictionaryService;
+
+    // Every pending payment by id, so a change applied twice (e.g. during the load) counts once
+    private final Map<Long, PendingPayment> pending = new HashMap<>();
+
+    // Bucket totals per normalized supplier name
+    private final Map<String, SupplierAging> suppliers = new HashMap<>();
+
+    // Pending totals per epoch day and supplier for days that can still change bucket, i.e.
+    // at most 90 days old. Rolling forward a day only moves the totals of three days
+    private final Map<Long, Map<String, Totals>> recentDays = new HashMap<>();
+
+    // Day the buckets are aged against
+    private long asOf = LocalDate.now().toEpochDay();
+
+    private volatile boolean loaded;
+
+    // Stream every pending payment once the application is up. Changes committed meanwhile
+    // wait on the lock and replace what the load read for the same payment
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        rollForward(LocalDate.now().toEpochDay());
+        short pendingCode = dictionaryService.encode(DictionaryService.PAYMENT_STATUS, PENDING);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT payment_id, date, payment_by, amount FROM payments WHERE status_code = ?",
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL buffers the whole result unless asked to stream it row by row
+            boolean mySql = connection.getMetaData().getDatabaseProductName().contains("MySQL");
+            statement.setFetchSize(mySql ? Integer.MIN_VALUE : 5000);
+            statement.setShort(1, pendingCode);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    put(rs.getLong(1), rs.getDate(2).toLocalDate().toEpochDay(), rs.getString(3),
+                        Money.toCents(rs.getBigDecimal(4)));
+                }
+            }
+            loaded = true;
+            logger.info("Payment aging loaded: {} pending payments, {} suppliers in {} ms",
+                pending.size(), suppliers.size(), System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            logger.error("Could not load payment aging: {}", e.getMessage());
+        }
+    }
+
+    // Apply committed payment changes; a payment counts only while its status is Pending
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onChange(ChangeEvent event) {
+        if (!"payment".equals(event.getEntity())) {
+            return;
+        }
+        PaymentResponse payment = (PaymentResponse) event.getRecord();
+        if (event.isDelete() || payment == null || !PENDING.equalsIgnoreCase(payment.getStatus())) {
+            remove(event.getId());
+        } else {
+            put(payment.getPaymentId(), payment.getDate().toEpochDay(), payment.getPaymentBy(),
+                Money.toCents(payment.getAmount()));
+        }
+    }
+
+    // Age every pending payment by a day, just after midnight
+    @Scheduled(cron = "0 0 0 * * *")
+    public synchronized void dailyRollForward() {
+        long start = System.currentTimeMillis();
+        long days = LocalDate.now().toEpochDay() - asOf;
+        rollForward(LocalDate.now().toEpochDay());
+        logger.debug("Payment aging rolled forward {} days in {} ms", days, System.currentTimeMillis() - start);
+    }
+
+    // Pending amounts per age bucket for every supplier, or the one given, largest outstanding first
+    public synchronized AgingResult getAging(String supplier, int limit) {
+        if (!loaded) {
+            throw new RuntimeException("Payment aging is still loading");
+        }
+        // Also covers a missed or late midnight run
+        rollForward(LocalDate.now().toEpochDay());
+
+        String key = supplier != null && !supplier.isBlank() ? PrefixIndex.normalize(supplier) : null;
+        long[] totalCents = new long[BUCKETS];
+        int[] totalCounts = new int[BUCKETS];
+        List<SupplierAging> matching = new ArrayList<>();
+        for (Map.Entry<String, SupplierAging> entry : suppliers.entrySet()) {
+            if (key != null && !key.equals(entry.getKey())) {
+                continue;
+            }
+            SupplierAging aging = entry.getValue();
+            for (int b = 0; b < BUCKETS; b++) {
+                totalCents[b] += aging.cents[b];
+                totalCounts[b] += aging.counts[b];
+            }
+            matching.add(aging);
+        }
+        matching.sort(Comparator.comparingLong(SupplierAging::totalCents).reversed()
+            .thenComparing(aging -> aging.name));
+
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<SupplierBuckets> rows = new ArrayList<>();
+        for (SupplierAging aging : matching.subList(0, Math.min(max, matching.size()))) {
+            rows.add(new SupplierBuckets(aging.name, buckets(aging.cents, aging.counts)));
+        }
+        return new AgingResult(LocalDate.ofEpochDay(asOf), buckets(totalCents, totalCounts),
+            rows, matching.size());
+    }
+
+    // Move the buckets forward to a later day. Each day, the totals that turn 31, 61 and 91
+    // days old move up one bucket; after 91 days a day's totals never move again
+    private void rollForward(long today) {
+        if (today - asOf > BUCKET_LIMITS[BUCKETS - 2] + 1) {
+            // Far behind: cheaper to re-bucket every pending payment
+            asOf = today;
+            rebucket();
+            return;
+        }
+        while (asOf < today) {
+            asOf++;
+            for (int b = 0; b < BUCKETS - 1; b++) {
+                long day = asOf - BUCKET_LIMITS[b] - 1;
+                Map<String, Totals> totals = recentDays.get(day);
+                if (totals == null) {
+                    continue;
+                }
+                for (Map.Entry<String, Totals> entry : totals.entrySet()) {
+                    SupplierAging aging = suppliers.get(entry.getKey());
+                    Totals moved = entry.getValue();
+                    aging.add(b, -moved.cents, -moved.count);
+                    aging.add(b + 1, moved.cents, moved.count);
+                }
+            }
+            recentDays.remove(asOf - BUCKET_LIMITS[BUCKETS - 2] - 1);
+        }
+    }
+
+    private void rebucket() {
+        suppliers.clear();
+        recentDays.clear();
+        for (PendingPayment payment : pending.values()) {
+            add(payment, 1);
+        }
+    }
+
+    private void put(long id, long day, String supplier, long cents) {
+        remove(id);
+        PendingPayment payment = new PendingPayment(day, PrefixIndex.normalize(supplier),
+            supplier == null ? "" : supplier.trim(), cents);
+        pending.put(id, payment);
+        add(payment, 1);
+    }
+
+    private void remove(long id) {
+        PendingPayment payment = pending.remove(id);
+        if (payment != null) {
+            add(payment, -1);
+        }
+    }
+
+    private void add(PendingPayment payment, int sign) {
+        SupplierAging aging = suppliers.computeIfAbsent(payment.supplierKey, key -> new SupplierAging(payment.name));
+        aging.add(bucket(asOf - payment.day), sign * payment.cents, sign);
+        if (aging.isEmpty()) {
+            suppliers.remove(payment.supplierKey);
+        }
+
+        if (asOf - payment.day <= BUCKET_LIMITS[BUCKETS - 2]) {
+            Map<String, Totals> day = recentDays.computeIfAbsent(payment.day, key -> new HashMap<>());
+            Totals totals = day.computeIfAbsent(payment.supplierKey, key -> new Totals());
+            totals.cents += sign * payment.cents;
+            totals.count += sign;
+            if (totals.count == 0) {
+                day.remove(payment.supplierKey);
+                if (day.isEmpty()) {
+                    recentDays.remove(payment.day);
+                }
+            }
+        }
+    }
+
+    // Bucket of an age in days; payments dated in the future count as current
+    private static int bucket(long age) {
+        for (int b = 0; b < BUCKETS - 1; b++) {
+            if (age <= BUCKET_LIMITS[b]) {
+                return b;
+            }
+        }
+        return BUCKETS - 1;
+    }
+
+    private static List<Bucket> buckets(long[] cents, int[] counts) {
+        List<Bucket> buckets = new ArrayList<>(BUCKETS);
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets.add(new Bucket(BUCKET_LABELS[b], counts[b], Money.toBigDecimal(cents[b])));
+        }
+        return buckets;
+    }
+
+    private static final class PendingPayment {
+        private final long day;
+        private final String supplierKey;
+        private final String name;
+        private final long cents;
+
+        private PendingPayment(long day, String supplierKey, String name, long cents) {
+            this.day = day;
+            this.supplierKey = supplierKey;
+            this.name = name;
+            this.cents = cents;
+        }
+    }
+
+    private static final class Totals {
+        private long cents;
+        private int count;
+    }
+
+    private static final class SupplierAging {
+        // First spelling seen for the supplier
+        private final String name;
+        private final long[] cents = new long[BUCKETS];
+        private final int[] counts = new int[BUCKETS];
+
+        private SupplierAging(String name) {
+            this.name = name;
+        }
+
+        private void add(int bucket, long amount, int count) {
+            cents[bucket] += amount;
+            counts[bucket] += count;
+        }
+
+        private boolean isEmpty() {
+            for (int count : counts) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long totalCents() {
+            long total = 0;
+            for (long amount : cents) {
+                total += amount;
+            }
+            return total;
+        }
+    }
+
+    // Pending count and amount of one age bucket
+    public static class Bucket {
+        private final String age;
+        private final int count;
+        private final BigDecimal amount;
+
+        public Bucket(String age, int count, BigDecimal amount) {
+            this.age = age;
+            this.count = count;
+            this.amount = amount;
+        }
+
+        // Getters
+        public String getAge() { return age; }
+        public int getCount() { return count; }
+        public BigDecimal getAmount() { return amount; }
+    }
+
+    // Age buckets of one supplier
+    public static class SupplierBuckets {
+        private final String supplier;
+        private final List<Bucket> buckets;
+
+        public SupplierBuckets(String supplier, List<Bucket> buckets) {
+            this.supplier = supplier;
+            this.buckets = buckets;
+        }
+
+        // Getters
+        public String getSupplier() { return supplier; }
+        public List<Bucket> getBuckets() { return buckets; }
+        public BigDecimal getTotal() {
+            return buckets.stream().map(Bucket::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+
+    // Inner class for payment aging results
+    public static class AgingResult {
+        private final LocalDate asOf;
+        private final List<Bucket> totals;
+        private final List<SupplierBuckets> suppliers;
+        private final int supplierCount;
+
+        public AgingResult(LocalDate asOf, List<Bucket> totals, List<SupplierBuckets> suppliers, int supplierCount) {
+            this.asOf = asOf;
+            this.totals = totals;
+            this.suppliers = suppliers;
+            this.supplierCount = supplierCount;
+        }
+
+        // Getters
+        public LocalDate getAsOf() { return asOf; }
+        public List<Bucket> getTotals() { return totals; }
+        public List<SupplierBuckets> getSuppliers() { return suppliers; }
+        public int getSupplierCount() { return supplierCount; }
+    }
+}
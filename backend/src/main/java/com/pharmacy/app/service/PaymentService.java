@@ -1,10 +1,12 @@
 package com.pharmacy.app.service;
 
+import com.pharmacy.app.dto.ChangeEvent;
 import com.pharmacy.app.dto.PaymentRequest;
 import com.pharmacy.app.dto.PaymentResponse;
 import com.pharmacy.app.entity.Payment;
 import com.pharmacy.app.repository.PaymentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -16,15 +18,31 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class PaymentService {
     
+    private static final Set<String> SELECTABLE_FIELDS = Set.of("paymentId", "paymentType", "date", "paymentBy", "amount", "status");
+    
+    private static final List<String> SEARCH_FIELDS = List.of("paymentType", "paymentBy", "status");
+    
     @Autowired
     private PaymentRepository paymentRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private SparseFieldsetService sparseFieldsetService;
+    
+    @Autowired
+    private DictionaryService dictionaryService;
+    
     @PersistenceContext
     private EntityManager entityManager;
     
@@ -33,18 +51,20 @@ public class PaymentService {
     public PaymentResponse createPayment(PaymentRequest request) {
         // Create new payment
         Payment payment = new Payment();
-        payment.setPaymentType(request.getPaymentType());
+        payment.setPaymentType(dictionaryService.register(DictionaryService.PAYMENT_TYPE, request.getPaymentType()));
         payment.setDate(request.getDate());
         payment.setPaymentBy(request.getPaymentBy());
         payment.setAmount(request.getAmount());
-        payment.setStatus(request.getStatus());
+        payment.setStatus(dictionaryService.register(DictionaryService.PAYMENT_STATUS, request.getStatus()));
         
         Payment savedPayment = paymentRepository.save(payment);
         
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(savedPayment);
+        PaymentResponse response = convertToResponse(savedPayment);
+        publishChange("created", response, null);
+        return response;
     }
     
     // Update existing payment
@@ -53,19 +73,24 @@ public class PaymentService {
         Payment payment = paymentRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
         
+        PaymentResponse previous = convertToResponse(payment);
+        
         // Update payment fields
-        payment.setPaymentType(request.getPaymentType());
+        payment.setPaymentType(dictionaryService.register(DictionaryService.PAYMENT_TYPE, request.getPaymentType()));
         payment.setDate(request.getDate());
         payment.setPaymentBy(request.getPaymentBy());
         payment.setAmount(request.getAmount());
-        payment.setStatus(request.getStatus());
+        payment.setStatus(dictionaryService.register(DictionaryService.PAYMENT_STATUS, request.getStatus()));
         
         Payment updatedPayment = paymentRepository.save(payment);
         
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(updatedPayment);
+        PaymentResponse response = convertToResponse(updatedPayment);
+        boolean statusChanged = !response.getStatus().equals(previous.getStatus());
+        publishChange(statusChanged ? "status" : "updated", response, previous);
+        return response;
     }
     
     // Get payment by ID
@@ -84,7 +109,11 @@ public class PaymentService {
         
         Page<Payment> payments;
         if (search != null && !search.trim().isEmpty()) {
-            payments = paymentRepository.findPaymentsWithSearch(search.trim(), pageable);
+            String term = search.trim();
+            payments = paymentRepository.findPaymentsWithSearch(term,
+                dictionaryService.valuesContaining(DictionaryService.PAYMENT_TYPE, term),
+                dictionaryService.valuesContaining(DictionaryService.PAYMENT_STATUS, term),
+                pageable);
         } else {
             payments = paymentRepository.findAll(pageable);
         }
@@ -92,6 +121,16 @@ public class PaymentService {
         return payments.map(this::convertToResponse);
     }
     
+    // Get selected payment fields with pagination
+    public Page<Map<String, Object>> getPaymentFields(int page, int size, String sortBy, String sortDir, String search, String fields) {
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        
+        Pageable pageable = PageRequest.of(page, size, sort);
+        List<String> selected = sparseFieldsetService.parseFields(fields, SELECTABLE_FIELDS);
+        return sparseFieldsetService.findPage(Payment.class, selected, SEARCH_FIELDS, search, pageable);
+    }
+    
     // Get payments by payment type
     public List<PaymentResponse> getPaymentsByType(String paymentType) {
         List<Payment> payments = paymentRepository.findByPaymentType(paymentType);
@@ -130,10 +169,14 @@ public class PaymentService {
         Payment payment = paymentRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
         
+        PaymentResponse previous = convertToResponse(payment);
+        
         paymentRepository.delete(payment);
         
         // Force flush and commit
         entityManager.flush();
+        
+        publishChange("deleted", null, previous);
     }
     
     // Get payment statistics
@@ -150,7 +193,9 @@ public class PaymentService {
     
     // Get distinct payment types
     public List<String> getDistinctPaymentTypes() {
-        return paymentRepository.findDistinctPaymentTypes();
+        return paymentRepository.findDistinctPaymentTypes().stream()
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .collect(Collectors.toList());
     }
     
     // Get distinct suppliers
@@ -160,7 +205,22 @@ public class PaymentService {
     
     // Get distinct statuses
     public List<String> getDistinctStatuses() {
-        return paymentRepository.findDistinctStatuses();
+        return paymentRepository.findDistinctStatuses().stream()
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .collect(Collectors.toList());
+    }
+    
+    // Publish a compact change event, delivered to listeners after commit
+    private void publishChange(String action, PaymentResponse current, PaymentResponse previous) {
+        PaymentResponse source = current != null ? current : previous;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("paymentBy", source.getPaymentBy());
+        data.put("amount", source.getAmount());
+        data.put("status", source.getStatus());
+        if (previous != null) {
+            data.put("previousStatus", previous.getStatus());
+        }
+        eventPublisher.publishEvent(new ChangeEvent("payment", action, source.getPaymentId(), data, current, previous));
     }
     
     // Helper method to convert Payment entity to PaymentResponse
@@ -0,0 +1,371 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.entity.ReconciliationEntry;
+import com.pharmacy.app.repository.ReconciliationRepository;
+import com.pharmacy.app.util.Money;
+import com.pharmacy.app.util.PrefixIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class ReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT =
+        "INSERT INTO reconciliation_entries (report_date, counterparty, counterparty_key, inflow, inflow_count, " +
+        "outflow, outflow_count, net, computed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Nightly runs recompute this many recent days, which picks up back-dated edits
+    @Value("${pharmacy.reconciliation.window-days:35}")
+    private int windowDays;
+
+    @Autowired
+    private ReconciliationRepository reconciliationRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RunSummary lastRun;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "reconciliation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Recompute the recent window every night; the first run covers all history
+    @Scheduled(cron = "${pharmacy.reconciliation.cron:0 30 2 * * *}")
+    public void nightly() {
+        LocalDate[] bounds = activityBounds();
+        if (bounds == null) {
+            return;
+        }
+        LocalDate from = reconciliationRepository.count() == 0
+            ? bounds[0]
+            : LocalDate.now().minusDays(windowDays - 1);
+        LocalDate to = bounds[1].isAfter(LocalDate.now()) ? bounds[1] : LocalDate.now();
+        try {
+            run(from, to);
+        } catch (RuntimeException e) {
+            logger.warn("Nightly reconciliation skipped: {}", e.getMessage());
+        }
+    }
+
+    // Start a run in the background; defaults to all history
+    public void submit(LocalDate startDate, LocalDate endDate) {
+        LocalDate[] bounds = activityBounds();
+        if (bounds == null) {
+            throw new IllegalArgumentException("There are no sales or payments to reconcile");
+        }
+        LocalDate from = startDate != null ? startDate : bounds[0];
+        LocalDate to = endDate != null ? endDate : bounds[1];
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+        if (running.get()) {
+            throw new RuntimeException("A reconciliation is already running");
+        }
+        runner.execute(() -> {
+            try {
+                run(from, to);
+            } catch (RuntimeException e) {
+                logger.warn("Reconciliation of {} to {} failed: {}", from, to, e.getMessage());
+            }
+        });
+    }
+
+    // Replace the report for a date range. Sales and payments are each read as one date-ordered
+    // stream and merged a day at a time, so memory holds only the counterparties of one day
+    public RunSummary run(LocalDate from, LocalDate to) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A reconciliation is already running");
+        }
+        RunSummary summary = new RunSummary(from, to);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM reconciliation_entries WHERE report_date BETWEEN ? AND ?", from, to);
+                try {
+                    mergeJoin(from, to, summary);
+                } catch (SQLException e) {
+                    throw new RuntimeException("Reconciliation failed: " + e.getMessage(), e);
+                }
+            });
+            summary.finish(null);
+            logger.info("Reconciled {} to {}: {} days, {} entries in {} ms",
+                from, to, summary.days, summary.entries, summary.tookMs);
+        } catch (RuntimeException e) {
+            summary.finish(e.getMessage());
+            throw e;
+        } finally {
+            lastRun = summary;
+            running.set(false);
+        }
+        return summary;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public RunSummary getLastRun() {
+        return lastRun;
+    }
+
+    // Whole-day entries of a range, with range totals
+    public Page<ReconciliationEntry> getDays(LocalDate startDate, LocalDate endDate, int page, int size) {
+        return reconciliationRepository.findByCounterpartyKeyIsNullAndReportDateBetweenOrderByReportDateAsc(
+            startDate, endDate, PageRequest.of(page, size));
+    }
+
+    // Inflow, inflow count, outflow, outflow count and net over a range
+    public Map<String, Object> getTotals(LocalDate startDate, LocalDate endDate) {
+        Object[] row = reconciliationRepository.getTotals(startDate, endDate).get(0);
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("inflow", amount(row[0]));
+        totals.put("inflowCount", ((Number) row[1]).longValue());
+        totals.put("outflow", amount(row[2]));
+        totals.put("outflowCount", ((Number) row[3]).longValue());
+        totals.put("net", amount(row[4]));
+        return totals;
+    }
+
+    // Customers and suppliers over a range, largest absolute net first
+    public List<Map<String, Object>> getCounterparties(LocalDate startDate, LocalDate endDate, int limit) {
+        List<Map<String, Object>> counterparties = new ArrayList<>();
+        for (Object[] row : reconciliationRepository.getCounterpartyTotals(startDate, endDate, PageRequest.of(0, limit))) {
+            Map<String, Object> counterparty = new LinkedHashMap<>();
+            counterparty.put("counterparty", row[1]);
+            counterparty.put("inflow", amount(row[2]));
+            counterparty.put("inflowCount", ((Number) row[3]).longValue());
+            counterparty.put("outflow", amount(row[4]));
+            counterparty.put("outflowCount", ((Number) row[5]).longValue());
+            counterparty.put("net", amount(row[6]));
+            counterparties.add(counterparty);
+        }
+        return counterparties;
+    }
+
+    // Day-by-day entries of one customer or supplier
+    public List<ReconciliationEntry> getCounterpartyDays(String counterparty, LocalDate startDate, LocalDate endDate) {
+        return reconciliationRepository.findByCounterpartyKeyAndReportDateBetweenOrderByReportDateAsc(
+            PrefixIndex.normalize(counterparty), startDate, endDate);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void mergeJoin(LocalDate from, LocalDate to, RunSummary summary) throws SQLException {
+        try (Connection salesConnection = dataSource.getConnection();
+             Connection paymentsConnection = dataSource.getConnection();
+             PreparedStatement salesQuery = streaming(salesConnection,
+                 "SELECT date, customer, amount FROM sales WHERE date BETWEEN ? AND ? ORDER BY date");
+             PreparedStatement paymentsQuery = streaming(paymentsConnection,
+                 "SELECT date, payment_by, amount FROM payments WHERE date BETWEEN ? AND ? ORDER BY date")) {
+            salesQuery.setObject(1, from);
+            salesQuery.setObject(2, to);
+            paymentsQuery.setObject(1, from);
+            paymentsQuery.setObject(2, to);
+
+            try (ResultSet sales = salesQuery.executeQuery();
+                 ResultSet payments = paymentsQuery.executeQuery()) {
+                boolean hasSale = sales.next();
+                boolean hasPayment = payments.next();
+                List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+                Timestamp computedAt = Timestamp.valueOf(LocalDateTime.now());
+
+                while (hasSale || hasPayment) {
+                    LocalDate saleDay = hasSale ? sales.getDate(1).toLocalDate() : null;
+                    LocalDate paymentDay = hasPayment ? payments.getDate(1).toLocalDate() : null;
+                    LocalDate day = saleDay == null ? paymentDay
+                        : paymentDay == null || saleDay.isBefore(paymentDay) ? saleDay : paymentDay;
+
+                    Flows total = new Flows(null);
+                    Map<String, Flows> counterparties = new LinkedHashMap<>();
+                    while (hasSale && sales.getDate(1).toLocalDate().equals(day)) {
+                        long cents = Money.toCents(sales.getBigDecimal(3));
+                        total.inflow(cents);
+                        flows(counterparties, sales.getString(2)).inflow(cents);
+                        hasSale = sales.next();
+                    }
+                    while (hasPayment && payments.getDate(1).toLocalDate().equals(day)) {
+                        long cents = Money.toCents(payments.getBigDecimal(3));
+                        total.outflow(cents);
+                        flows(counterparties, payments.getString(2)).outflow(cents);
+                        hasPayment = payments.next();
+                    }
+
+                    batch.add(row(day, null, null, total, computedAt));
+                    for (Map.Entry<String, Flows> entry : counterparties.entrySet()) {
+                        batch.add(row(day, entry.getValue().name, entry.getKey(), entry.getValue(), computedAt));
+                    }
+                    summary.add(total, counterparties.size() + 1);
+                    if (batch.size() >= BATCH_SIZE) {
+                        jdbcTemplate.batchUpdate(INSERT, batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT, batch);
+                }
+            }
+        }
+    }
+
+    // Forward-only cursor; MySQL streams rows only with this fetch size, others take it as a hint
+    private PreparedStatement streaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mySql = connection.getMetaData().getDatabaseProductName().contains("MySQL");
+        statement.setFetchSize(mySql ? Integer.MIN_VALUE : 1000);
+        return statement;
+    }
+
+    private Flows flows(Map<String, Flows> counterparties, String name) {
+        return counterparties.computeIfAbsent(PrefixIndex.normalize(name), key -> new Flows(name.trim()));
+    }
+
+    private Object[] row(LocalDate day, String name, String key, Flows flows, Timestamp computedAt) {
+        return new Object[] {
+            day, name, key,
+            Money.toBigDecimal(flows.inflowCents), flows.inflowCount,
+            Money.toBigDecimal(flows.outflowCents), flows.outflowCount,
+            Money.toBigDecimal(flows.inflowCents - flows.outflowCents), computedAt
+        };
+    }
+
+    // Earliest and latest day with a sale or payment, or null when there are none
+    private LocalDate[] activityBounds() {
+        LocalDate[] sales = bounds("sales");
+        LocalDate[] payments = bounds("payments");
+        if (sales == null) {
+            return payments;
+        }
+        if (payments == null) {
+            return sales;
+        }
+        return new LocalDate[] {
+            sales[0].isBefore(payments[0]) ? sales[0] : payments[0],
+            sales[1].isAfter(payments[1]) ? sales[1] : payments[1]
+        };
+    }
+
+    private LocalDate[] bounds(String table) {
+        return jdbcTemplate.query("SELECT MIN(date), MAX(date) FROM " + table, rs -> {
+            rs.next();
+            LocalDate first = rs.getObject(1, LocalDate.class);
+            return first != null ? new LocalDate[] {first, rs.getObject(2, LocalDate.class)} : null;
+        });
+    }
+
+    private static BigDecimal amount(Object value) {
+        BigDecimal amount = value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+        return Money.toBigDecimal(Money.toCents(amount));
+    }
+
+    // Running inflow and outflow of one day or counterparty
+    private static final class Flows {
+        private final String name;
+        private long inflowCents;
+        private int inflowCount;
+        private long outflowCents;
+        private int outflowCount;
+
+        private Flows(String name) {
+            this.name = name;
+        }
+
+        private void inflow(long cents) {
+            inflowCents += cents;
+            inflowCount++;
+        }
+
+        private void outflow(long cents) {
+            outflowCents += cents;
+            outflowCount++;
+        }
+    }
+
+    // Inner class for the outcome of a reconciliation run
+    public static class RunSummary {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private LocalDateTime finishedAt;
+        private long tookMs;
+        private int days;
+        private int entries;
+        private long inflowCents;
+        private long outflowCents;
+        private String error;
+
+        public RunSummary(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        private void add(Flows day, int dayEntries) {
+            days++;
+            entries += dayEntries;
+            inflowCents += day.inflowCents;
+            outflowCents += day.outflowCents;
+        }
+
+        private void finish(String error) {
+            this.finishedAt = LocalDateTime.now();
+            this.tookMs = Duration.between(startedAt, finishedAt).toMillis();
+            this.error = error;
+        }
+
+        // Getters
+        public LocalDate getStartDate() { return startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public long getTookMs() { return tookMs; }
+        public int getDays() { return days; }
+        public int getEntries() { return entries; }
+        public BigDecimal getInflow() { return Money.toBigDecimal(inflowCents); }
+        public BigDecimal getOutflow() { return Money.toBigDecimal(outflowCents); }
+        public String getError() { return error; }
+        public boolean isSuccessful() { return finishedAt != null && error == null; }
+    }
+}
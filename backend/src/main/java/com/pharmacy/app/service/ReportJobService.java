@@ -0,0 +1,314 @@
+package com.pharmacy.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.app.entity.ReportJobEntry;
+import com.pharmacy.app.entity.ReportResult;
+import com.pharmacy.app.repository.ReportJobEntryRepository;
+import com.pharmacy.app.repository.ReportResultRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final int QUEUE_CAPACITY = 20;
+
+    @Value("${pharmacy.reports.workers:2}")
+    private int workers;
+
+    @Value("${pharmacy.reports.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private ChangeStreamService changeStreamService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReportJobEntryRepository reportJobRepository;
+
+    @Autowired
+    private ReportResultRepository reportResultRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Jobs and results live in report_jobs and report_results, so a job submitted to one
+    // instance can be polled, fetched or deleted through any other. Only the workers of
+    // the submitting instance run it; this holds their futures for cancelling
+    private final Map<String, Future<?>> running = new ConcurrentHashMap<>();
+
+    // A few workers with a short queue: each running report holds one database connection,
+    // so this caps what reports can take from interactive requests. A full queue rejects
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                Thread thread = new Thread(r, "report-job");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Queue a sales search over the given filters
+    public ReportJob submitSalesReport(String saleType, String status, String customer,
+                                       LocalDate startDate, LocalDate endDate) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("saleType", saleType);
+        parameters.put("status", status);
+        parameters.put("customer", customer);
+        parameters.put("startDate", startDate);
+        parameters.put("endDate", endDate);
+        return submit("sales", parameters, () -> {
+            List<?> sales = saleService.searchSales(saleType, status, customer, startDate, endDate);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("totalItems", sales.size());
+            report.put("sales", sales);
+            return report;
+        });
+    }
+
+    // Queue a payment listing between two dates
+    public ReportJob submitPaymentsReport(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("startDate and endDate are required for a payments report");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("startDate", startDate);
+        parameters.put("endDate", endDate);
+        return submit("payments", parameters, () -> {
+            List<?> payments = paymentService.getPaymentsByDateRange(startDate, endDate);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("totalItems", payments.size());
+            report.put("payments", payments);
+            report.put("startDate", startDate);
+            report.put("endDate", endDate);
+            return report;
+        });
+    }
+
+    // Job by id, or null when unknown or expired
+    public ReportJob getJob(String id) {
+        return reportJobRepository.findById(id)
+            .filter(entry -> entry.getExpiresAt().isAfter(Instant.now()))
+            .map(this::toJob)
+            .orElse(null);
+    }
+
+    // Body of a completed job, or null when there is none
+    public byte[] getResult(String id) {
+        ReportJob job = getJob(id);
+        if (job == null || !COMPLETED.equals(job.status)) {
+            return null;
+        }
+        return reportResultRepository.findById(id).map(ReportResult::getBody).orElse(null);
+    }
+
+    // Cancel a job if still pending here and drop its result. A worker on another instance
+    // finds the row gone when it finishes and discards what it wrote
+    public boolean deleteJob(String id) {
+        Future<?> future = running.remove(id);
+        if (future != null) {
+            future.cancel(true);
+        }
+        jdbcTemplate.update("DELETE FROM report_results WHERE job_id = ?", id);
+        return jdbcTemplate.update("DELETE FROM report_jobs WHERE job_id = ?", id) > 0;
+    }
+
+    public List<ReportJob> getJobs() {
+        return reportJobRepository.findByExpiresAtAfterOrderBySubmittedAtDesc(Instant.now()).stream()
+            .map(this::toJob)
+            .collect(Collectors.toList());
+    }
+
+    // Drop expired jobs and their results; every instance runs this and a second pass finds nothing
+    @Scheduled(fixedRate = 60000)
+    public void purgeExpired() {
+        try {
+            Timestamp now = Timestamp.from(Instant.now());
+            jdbcTemplate.update("DELETE FROM report_results WHERE job_id IN " +
+                "(SELECT job_id FROM report_jobs WHERE expires_at <= ?)", now);
+            int purged = jdbcTemplate.update("DELETE FROM report_jobs WHERE expires_at <= ?", now);
+            if (purged > 0) {
+                logger.debug("Purged {} expired report jobs", purged);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not purge expired report jobs: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ReportJob submit(String type, Map<String, Object> parameters, Supplier<Map<String, Object>> report) {
+        Instant now = Instant.now();
+        ReportJobEntry entry;
+        try {
+            entry = new ReportJobEntry(UUID.randomUUID().toString(), type, objectMapper.writeValueAsString(parameters),
+                now, now.plusSeconds(ttlMinutes * 60));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid report parameters: " + e.getMessage());
+        }
+        reportJobRepository.save(entry);
+        try {
+            Future<?> future = executor.submit(() -> run(entry.getId(), type, report));
+            running.put(entry.getId(), future);
+            if (future.isDone()) {
+                running.remove(entry.getId());
+            }
+        } catch (RejectedExecutionException e) {
+            reportJobRepository.deleteById(entry.getId());
+            throw new RuntimeException("Too many reports are running; try again shortly");
+        }
+        return toJob(entry);
+    }
+
+    private void run(String id, String type, Supplier<Map<String, Object>> report) {
+        try {
+            if (jdbcTemplate.update("UPDATE report_jobs SET status = ?, started_at = ? WHERE job_id = ? AND status = ?",
+                    RUNNING, Timestamp.from(Instant.now()), id, QUEUED) == 0) {
+                // Deleted while queued
+                return;
+            }
+            String status;
+            Integer totalItems = null;
+            String error = null;
+            try {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("success", true);
+                body.put("jobId", id);
+                body.put("type", type);
+                Map<String, Object> result = report.get();
+                body.putAll(result);
+                // Stored before the job is marked complete, so a poller never sees a missing result
+                reportResultRepository.save(new ReportResult(id, objectMapper.writeValueAsBytes(body)));
+                totalItems = (Integer) result.get("totalItems");
+                status = COMPLETED;
+            } catch (Exception e) {
+                logger.warn("Report job {} ({}) failed: {}", id, type, e.getMessage());
+                error = e.getMessage();
+                if (error != null && error.length() > 500) {
+                    error = error.substring(0, 500);
+                }
+                status = FAILED;
+            }
+            Instant finishedAt = Instant.now();
+            int updated = jdbcTemplate.update(
+                "UPDATE report_jobs SET status = ?, finished_at = ?, expires_at = ?, total_items = ?, error = ? " +
+                "WHERE job_id = ? AND status = ?",
+                status, Timestamp.from(finishedAt), Timestamp.from(finishedAt.plusSeconds(ttlMinutes * 60)),
+                totalItems, error, id, RUNNING);
+            if (updated == 0) {
+                // Deleted while running
+                jdbcTemplate.update("DELETE FROM report_results WHERE job_id = ?", id);
+                return;
+            }
+            ReportJob job = getJob(id);
+            if (job != null) {
+                changeStreamService.publish("report." + status.toLowerCase(), job);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not record report job {}: {}", id, e.getMessage());
+        } finally {
+            running.remove(id);
+        }
+    }
+
+    private ReportJob toJob(ReportJobEntry entry) {
+        Map<String, Object> parameters;
+        try {
+            parameters = objectMapper.readValue(entry.getParameters(), new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (JsonProcessingException e) {
+            parameters = Map.of();
+        }
+        ReportJob job = new ReportJob(entry.getId(), entry.getType(), parameters, entry.getSubmittedAt());
+        job.status = entry.getStatus();
+        job.startedAt = entry.getStartedAt();
+        job.finishedAt = entry.getFinishedAt();
+        // Pending jobs show no expiry, as before; theirs only bounds a job whose instance stopped
+        job.expiresAt = COMPLETED.equals(entry.getStatus()) || FAILED.equals(entry.getStatus()) ? entry.getExpiresAt() : null;
+        job.totalItems = entry.getTotalItems();
+        job.error = entry.getError();
+        return job;
+    }
+
+    // Inner class for report job state
+    public static class ReportJob {
+        private final String id;
+        private final String type;
+        private final Map<String, Object> parameters;
+        private final Instant submittedAt;
+        private String status = QUEUED;
+        private Instant startedAt;
+        private Instant finishedAt;
+        private Instant expiresAt;
+        private Integer totalItems;
+        private String error;
+
+        public ReportJob(String id, String type, Map<String, Object> parameters, Instant submittedAt) {
+            this.id = id;
+            this.type = type;
+            this.parameters = parameters;
+            this.submittedAt = submittedAt;
+        }
+
+        // Getters
+        public String getId() { return id; }
+        public String getType() { return type; }
+        public Map<String, Object> getParameters() { return parameters; }
+        public String getStatus() { return status; }
+        public Instant getSubmittedAt() { return submittedAt; }
+        public Instant getStartedAt() { return startedAt; }
+        public Instant getFinishedAt() { return finishedAt; }
+        public Instant getExpiresAt() { return expiresAt; }
+        public Integer getTotalItems() { return totalItems; }
+        public String getError() { return error; }
+    }
+}
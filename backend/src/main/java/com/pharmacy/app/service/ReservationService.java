@@ -0,0 +1,391 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.ReservationRequest;
+import com.pharmacy.app.entity.StockReservation;
+import com.pharmacy.app.repository.StockReservationRepository;
+import com.pharmacy.app.util.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class ReservationService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
+    public static final String HELD = "HELD";
+    public static final String COMMITTED = "COMMITTED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+
+    // Ticks between sweeps for holds whose node stopped before marking them
+    private static final int SWEEP_TICKS = 60;
+
+    private static final String UPDATE_STATUS =
+        "UPDATE stock_reservations SET status = ?, updated_at = ? WHERE reservation_id = ? AND status = 'HELD'";
+
+    // Hold length when the request gives none, and the longest a hold may last
+    @Value("${pharmacy.reservations.default-ttl-seconds:600}")
+    private int defaultTtlSeconds;
+
+    @Value("${pharmacy.reservations.max-ttl-seconds:3600}")
+    private int maxTtlSeconds;
+
+    // Expiry resolution and timing wheel slots; holds expire up to one tick late
+    @Value("${pharmacy.reservations.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${pharmacy.reservations.wheel-size:512}")
+    private int wheelSize;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private MedicineService medicineService;
+
+    @Autowired
+    private EquipmentService equipmentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockMutationManager stockMutationManager;
+
+    // stock_reservations is the record every node reads: units held are summed from its live
+    // rows under the item's row lock, and a hold past its expiry counts as gone even before
+    // its row is marked. The wheel only marks rows; it holds the timers of this node's holds
+    private final Map<Long, TimingWheel.Timer<Long>> timers = new ConcurrentHashMap<>();
+
+    private TimingWheel<Long> wheel;
+
+    // Ticks until the next sweep; only the ticker thread touches it
+    private int ticksToSweep;
+
+    // Expires holds as the wheel turns
+    private final ScheduledThreadPoolExecutor ticker = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "reservations");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Schedule the holds that were live when the application stopped, before the web server
+    // takes requests. Holds that ran out meanwhile are marked expired
+    @Override
+    public void afterSingletonsInstantiated() {
+        wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+
+        int expired = sweep();
+        List<StockReservation> live = reservationRepository.findByStatus(HELD);
+        for (StockReservation reservation : live) {
+            schedule(reservation.getId(), toMillis(reservation.getExpiresAt()));
+        }
+        logger.info("Stock reservations recovered: {} live holds, {} expired while stopped", live.size(), expired);
+        ticker.scheduleWithFixedDelay(this::expire, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Hold units of an item for a cart. Fails when the stock not already held is short.
+    // The item row stays locked from the count to the commit, so two nodes cannot both
+    // take the last units
+    public StockReservation reserve(ReservationRequest request) {
+        String itemType = itemType(request.getItemType());
+        int ttl = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        if (ttl < 1 || ttl > maxTtlSeconds) {
+            throw new IllegalArgumentException("ttlSeconds must be between 1 and " + maxTtlSeconds);
+        }
+        String cartId = request.getCartId().trim();
+        Long itemId = request.getItemId();
+
+        StockReservation reservation = stockMutationManager.mutate(itemType, itemId, () -> {
+            long now = System.currentTimeMillis();
+            int available = stock(itemType, itemId, true) - held(itemType, itemId, now);
+            if (request.getQuantity() > available) {
+                throw new IllegalStateException("Only " + Math.max(0, available) + " units of " +
+                    key(itemType, itemId) + " are available to reserve");
+            }
+            return reservationRepository.save(new StockReservation(
+                cartId, itemType, itemId, request.getQuantity(), toDateTime(now + ttl * 1000L)));
+        });
+        schedule(reservation.getId(), toMillis(reservation.getExpiresAt()));
+        return reservation;
+    }
+
+    // Release one hold; false when it is no longer held
+    public boolean release(Long reservationId) {
+        LocalDateTime now = LocalDateTime.now();
+        int released = jdbcTemplate.update(
+            "UPDATE stock_reservations SET status = ?, updated_at = ? " +
+            "WHERE reservation_id = ? AND status = 'HELD' AND expires_at > ?",
+            RELEASED, Timestamp.valueOf(now), reservationId, Timestamp.valueOf(now));
+        unschedule(reservationId);
+        return released > 0;
+    }
+
+    // Release every hold of a cart, e.g. when the checkout is abandoned; returns how many
+    public int releaseCart(String cartId) {
+        int released = 0;
+        for (Long id : liveIds("cart_id = ?", cartId)) {
+            if (release(id)) {
+                released++;
+            }
+        }
+        return released;
+    }
+
+    // Turn every hold of a cart into a SALE decrement of its item, all in one transaction that
+    // reruns if another node changed an item first. The item rows are locked before the holds
+    // are read, and the holds before they are sold, so no hold can be reserved against, expire
+    // or be released halfway; if any item is short (its stock was lowered directly) nothing
+    // changes and the holds remain
+    public List<CommittedItem> commitCart(String cartId) {
+        List<CommittedItem> cartItems = jdbcTemplate.query(
+            "SELECT DISTINCT item_type, item_id FROM stock_reservations " +
+            "WHERE cart_id = ? AND status = 'HELD' AND expires_at > ? ORDER BY item_type, item_id",
+            (rs, row) -> new CommittedItem(rs.getString(1), rs.getLong(2)),
+            cartId, Timestamp.valueOf(LocalDateTime.now()));
+        if (cartItems.isEmpty()) {
+            throw new IllegalArgumentException("Cart " + cartId + " has no live holds");
+        }
+
+        List<String> keys = cartItems.stream().map(item -> key(item.itemType, item.itemId)).toList();
+        List<Long> committed = new ArrayList<>();
+        Map<String, CommittedItem> items = new LinkedHashMap<>();
+        String reference = "cart " + cartId;
+        stockMutationManager.mutateAll(keys, () -> {
+            committed.clear();
+            items.clear();
+            // Item rows are locked in type and id order, so two carts cannot wait on each other
+            Map<String, Integer> stocks = new HashMap<>();
+            for (CommittedItem item : cartItems) {
+                stocks.put(key(item.itemType, item.itemId), stock(item.itemType, item.itemId, true));
+            }
+            // A hold added for another item after the cart was read stays held
+            List<Map<String, Object>> holds = jdbcTemplate.queryForList(
+                "SELECT reservation_id, item_type, item_id, quantity FROM stock_reservations " +
+                "WHERE cart_id = ? AND status = 'HELD' AND expires_at > ? ORDER BY reservation_id FOR UPDATE",
+                cartId, Timestamp.valueOf(LocalDateTime.now()));
+            for (Map<String, Object> hold : holds) {
+                String itemType = (String) value(hold, "item_type");
+                Long itemId = ((Number) value(hold, "item_id")).longValue();
+                String key = key(itemType, itemId);
+                if (!stocks.containsKey(key)) {
+                    continue;
+                }
+                committed.add(((Number) value(hold, "reservation_id")).longValue());
+                items.computeIfAbsent(key, k -> new CommittedItem(itemType, itemId)).quantity +=
+                    ((Number) value(hold, "quantity")).intValue();
+            }
+            if (committed.isEmpty()) {
+                throw new IllegalArgumentException("Cart " + cartId + " has no live holds");
+            }
+            for (Map.Entry<String, CommittedItem> entry : items.entrySet()) {
+                CommittedItem item = entry.getValue();
+                int stock = stocks.get(entry.getKey());
+                if (stock < item.quantity) {
+                    throw new IllegalStateException("Only " + stock + " units of " +
+                        entry.getKey() + " are in stock for " + item.quantity + " held");
+                }
+                item.remaining = stock - item.quantity;
+                if (StockLedgerService.MEDICINE.equals(item.itemType)) {
+                    medicineService.updateMedicineStock(item.itemId, item.remaining, StockLedgerService.SALE, reference);
+                } else {
+                    equipmentService.updateEquipmentStock(item.itemId, item.remaining, StockLedgerService.SALE, reference);
+                }
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(UPDATE_STATUS, committed.stream()
+                .map(id -> new Object[] {COMMITTED, now, id}).toList());
+            return null;
+        }, () -> committed.forEach(this::unschedule));
+        return new ArrayList<>(items.values());
+    }
+
+    // Stock of an item, the units held and what is left to reserve
+    public Availability getAvailability(String itemType, Long itemId) {
+        String type = itemType(itemType);
+        int stock = stock(type, itemId, false);
+        int units = held(type, itemId, System.currentTimeMillis());
+        return new Availability(type, itemId, stock, units, Math.max(0, stock - units));
+    }
+
+    // Every reservation of a cart, whatever its status
+    public List<StockReservation> getCart(String cartId) {
+        return reservationRepository.findByCartIdOrderByIdAsc(cartId);
+    }
+
+    // A deleted item can no longer be sold, so its holds are released
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (!event.isDelete() || !(StockLedgerService.MEDICINE.equals(event.getEntity()) ||
+                StockLedgerService.EQUIPMENT.equals(event.getEntity()))) {
+            return;
+        }
+        for (Long id : liveIds("item_type = ? AND item_id = ?", event.getEntity(), event.getId())) {
+            release(id);
+        }
+    }
+
+    // Turn the wheel and mark the holds that came due. A crash before the rows are marked
+    // changes nothing, since a hold past its expiry is no longer counted anyway
+    private void expire() {
+        try {
+            List<Object[]> expired = new ArrayList<>();
+            Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+            for (Long id : wheel.advance(System.currentTimeMillis())) {
+                if (timers.remove(id) != null) {
+                    expired.add(new Object[] {EXPIRED, updatedAt, id});
+                }
+            }
+            if (!expired.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_STATUS, expired);
+                logger.debug("Expired {} stock reservations", expired.size());
+            }
+            if (--ticksToSweep <= 0) {
+                ticksToSweep = SWEEP_TICKS;
+                sweep();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not expire stock reservations: {}", e.getMessage());
+        }
+    }
+
+    // Mark every hold past its expiry, including those of a node that stopped
+    private int sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(
+            "UPDATE stock_reservations SET status = ?, updated_at = ? WHERE status = ? AND expires_at <= ?",
+            EXPIRED, Timestamp.valueOf(now), HELD, Timestamp.valueOf(now));
+    }
+
+    private void schedule(Long reservationId, long expiresAt) {
+        timers.put(reservationId, wheel.schedule(reservationId, expiresAt));
+    }
+
+    private void unschedule(Long reservationId) {
+        TimingWheel.Timer<Long> timer = timers.remove(reservationId);
+        if (timer != null) {
+            wheel.cancel(timer);
+        }
+    }
+
+    // Ids of live holds matching a condition
+    private List<Long> liveIds(String condition, Object... args) {
+        Object[] params = Arrays.copyOf(args, args.length + 1);
+        params[args.length] = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.queryForList("SELECT reservation_id FROM stock_reservations WHERE " + condition +
+            " AND status = 'HELD' AND expires_at > ? ORDER BY reservation_id", Long.class, params);
+    }
+
+    // Units of an item held by live reservations on any node
+    private int held(String itemType, Long itemId, long nowMs) {
+        Integer units = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(quantity), 0) FROM stock_reservations " +
+            "WHERE item_type = ? AND item_id = ? AND status = 'HELD' AND expires_at > ?",
+            Integer.class, itemType, itemId, Timestamp.valueOf(toDateTime(nowMs)));
+        return units != null ? units : 0;
+    }
+
+    // Stock of an item; locked reads hold its row until the transaction ends
+    private int stock(String itemType, Long itemId, boolean lock) {
+        boolean medicine = StockLedgerService.MEDICINE.equals(itemType);
+        List<Integer> stock = jdbcTemplate.queryForList(
+            (medicine ? "SELECT no_of_medicines FROM medicines" : "SELECT no_of_equipments FROM equipment") +
+            " WHERE id = ?" + (lock ? " FOR UPDATE" : ""), Integer.class, itemId);
+        if (stock.isEmpty()) {
+            throw new RuntimeException((medicine ? "Medicine" : "Equipment") + " not found with id: " + itemId);
+        }
+        return stock.get(0) != null ? stock.get(0) : 0;
+    }
+
+    private static String itemType(String itemType) {
+        String type = itemType == null ? "" : itemType.trim().toLowerCase(Locale.ROOT);
+        if (!StockLedgerService.MEDICINE.equals(type) && !StockLedgerService.EQUIPMENT.equals(type)) {
+            throw new IllegalArgumentException("Invalid itemType: " + itemType + " (use medicine or equipment)");
+        }
+        return type;
+    }
+
+    private static String key(String itemType, Long itemId) {
+        return StockMutationManager.key(itemType, itemId);
+    }
+
+    // Column labels come back upper-case from some drivers
+    private static Object value(Map<String, Object> row, String column) {
+        Object value = row.get(column);
+        return value != null ? value : row.get(column.toUpperCase(Locale.ROOT));
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    // Units of one item taken from stock by a cart commit
+    public static class CommittedItem {
+        private final String itemType;
+        private final Long itemId;
+        private int quantity;
+        private int remaining;
+
+        public CommittedItem(String itemType, Long itemId) {
+            this.itemType = itemType;
+            this.itemId = itemId;
+        }
+
+        // Getters
+        public String getItemType() { return itemType; }
+        public Long getItemId() { return itemId; }
+        public int getQuantity() { return quantity; }
+        public int getRemaining() { return remaining; }
+    }
+
+    // Inner class for reservation availability
+    public static class Availability {
+        private final String itemType;
+        private final Long itemId;
+        private final int stock;
+        private final int held;
+        private final int available;
+
+        public Availability(String itemType, Long itemId, int stock, int held, int available) {
+            this.itemType = itemType;
+            this.itemId = itemId;
+            this.stock = stock;
+            this.held = held;
+            this.available = available;
+        }
+
+        // Getters
+        public String getItemType() { return itemType; }
+        public Long getItemId() { return itemId; }
+        public int getStock() { return stock; }
+        public int getHeld() { return held; }
+        public int getAvailable() { return available; }
+    }
+}
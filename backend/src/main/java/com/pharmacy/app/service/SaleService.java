@@ -1,13 +1,17 @@
 package com.pharmacy.app.service;
 
+import com.pharmacy.app.dto.ChangeEvent;
 import com.pharmacy.app.dto.SaleRequest;
 import com.pharmacy.app.dto.SaleResponse;
 import com.pharmacy.app.entity.Sale;
 import com.pharmacy.app.repository.SaleRepository;
+import com.pharmacy.app.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,31 +19,47 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class SaleService {
 
+    private static final Set<String> SELECTABLE_FIELDS = Set.of("saleId", "saleType", "date", "customer", "amount", "status");
+
     @Autowired
     private SaleRepository saleRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SparseFieldsetService sparseFieldsetService;
+    
+    @Autowired
+    private DictionaryService dictionaryService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
     // Create a new sale
     public SaleResponse createSale(SaleRequest saleRequest) {
         Sale sale = new Sale();
-        sale.setSaleType(saleRequest.getSaleType());
+        sale.setSaleType(dictionaryService.register(DictionaryService.SALE_TYPE, saleRequest.getSaleType()));
         sale.setDate(saleRequest.getDate());
         sale.setCustomer(saleRequest.getCustomer());
         sale.setAmount(saleRequest.getAmount());
-        sale.setStatus(saleRequest.getStatus());
+        sale.setStatus(dictionaryService.register(DictionaryService.SALE_STATUS, saleRequest.getStatus()));
         
         Sale savedSale = saleRepository.save(sale);
-        return convertToResponse(savedSale);
+        SaleResponse response = convertToResponse(savedSale);
+        publishChange("created", response, null);
+        return response;
     }
 
     // Get all sales
@@ -61,22 +81,28 @@ public class SaleService {
         Optional<Sale> existingSale = saleRepository.findById(saleId);
         if (existingSale.isPresent()) {
             Sale sale = existingSale.get();
-            sale.setSaleType(saleRequest.getSaleType());
+            SaleResponse previous = convertToResponse(sale);
+            sale.setSaleType(dictionaryService.register(DictionaryService.SALE_TYPE, saleRequest.getSaleType()));
             sale.setDate(saleRequest.getDate());
             sale.setCustomer(saleRequest.getCustomer());
             sale.setAmount(saleRequest.getAmount());
-            sale.setStatus(saleRequest.getStatus());
+            sale.setStatus(dictionaryService.register(DictionaryService.SALE_STATUS, saleRequest.getStatus()));
             
             Sale updatedSale = saleRepository.save(sale);
-            return Optional.of(convertToResponse(updatedSale));
+            SaleResponse response = convertToResponse(updatedSale);
+            publishChange("updated", response, previous);
+            return Optional.of(response);
         }
         return Optional.empty();
     }
 
     // Delete sale
     public boolean deleteSale(Long saleId) {
-        if (saleRepository.existsById(saleId)) {
-            saleRepository.deleteById(saleId);
+        Optional<Sale> existingSale = saleRepository.findById(saleId);
+        if (existingSale.isPresent()) {
+            SaleResponse previous = convertToResponse(existingSale.get());
+            saleRepository.delete(existingSale.get());
+            publishChange("deleted", null, previous);
             return true;
         }
         return false;
@@ -89,6 +115,19 @@ public class SaleService {
         return salesPage.map(this::convertToResponse);
     }
 
+    // Get selected fields of all sales
+    public List<Map<String, Object>> getSaleFields(String fields) {
+        List<String> selected = sparseFieldsetService.parseFields(fields, SELECTABLE_FIELDS);
+        return sparseFieldsetService.findAll(Sale.class, selected, Sort.by("saleId").descending());
+    }
+
+    // Get selected sale fields with pagination
+    public Page<Map<String, Object>> getSaleFieldsWithPagination(int page, int size, String fields) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("saleId").descending());
+        List<String> selected = sparseFieldsetService.parseFields(fields, SELECTABLE_FIELDS);
+        return sparseFieldsetService.findPage(Sale.class, selected, List.of(), null, pageable);
+    }
+
     // Search sales
     public List<SaleResponse> searchSales(String saleType, String status, String customer, 
                                          LocalDate startDate, LocalDate endDate) {
@@ -122,6 +161,13 @@ public class SaleService {
                    .collect(Collectors.toList());
     }
 
+    // Get sales by customer with pagination, newest first
+    public Page<SaleResponse> searchSalesByCustomer(String customer, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("saleId").descending());
+        return saleRepository.findByCustomerContainingIgnoreCase(customer, pageable)
+                .map(this::convertToResponse);
+    }
+
     // Get sales by date range
     public List<SaleResponse> getSalesByDateRange(LocalDate startDate, LocalDate endDate) {
         List<Sale> sales = saleRepository.findByDateBetween(startDate, endDate);
@@ -137,30 +183,53 @@ public class SaleService {
 
     // Get sales statistics
     public SalesStatistics getSalesStatistics() {
-        List<Sale> allSales = saleRepository.findAll();
-        
-        long totalSales = allSales.size();
-        BigDecimal totalAmount = saleRepository.getTotalSalesAmount();
-        
-        long completedSales = allSales.stream()
-                                    .filter(sale -> "Completed".equalsIgnoreCase(sale.getStatus()))
-                                    .count();
-        
-        long pendingSales = allSales.stream()
-                                  .filter(sale -> "Pending".equalsIgnoreCase(sale.getStatus()))
-                                  .count();
+        // Statuses and types are dictionary codes; values differing only in case share a code
+        short completed = dictionaryService.encode(DictionaryService.SALE_STATUS, "Completed");
+        short pending = dictionaryService.encode(DictionaryService.SALE_STATUS, "Pending");
+        short medicine = dictionaryService.encode(DictionaryService.SALE_TYPE, "Medicine");
+        short equipment = dictionaryService.encode(DictionaryService.SALE_TYPE, "Equipment");
         
-        long medicineSales = allSales.stream()
-                                   .filter(sale -> "Medicine".equalsIgnoreCase(sale.getSaleType()))
-                                   .count();
-        
-        long equipmentSales = allSales.stream()
-                                    .filter(sale -> "Equipment".equalsIgnoreCase(sale.getSaleType()))
-                                    .count();
+        long totalSales = 0;
+        long totalCents = 0;
+        long completedSales = 0;
+        long pendingSales = 0;
+        long medicineSales = 0;
+        long equipmentSales = 0;
+        for (Object[] row : saleRepository.getSalesTotalsByStatusAndTypeCode()) {
+            int status = ((Number) row[0]).intValue();
+            int saleType = ((Number) row[1]).intValue();
+            long count = ((Number) row[2]).longValue();
+            
+            totalSales += count;
+            totalCents += Money.toCents((BigDecimal) row[3]);
+            if (status == completed) {
+                completedSales += count;
+            } else if (status == pending) {
+                pendingSales += count;
+            }
+            if (saleType == medicine) {
+                medicineSales += count;
+            } else if (saleType == equipment) {
+                equipmentSales += count;
+            }
+        }
         
+        BigDecimal totalAmount = Money.toBigDecimal(totalCents);
         return new SalesStatistics(totalSales, totalAmount, completedSales, pendingSales, medicineSales, equipmentSales);
     }
 
+    // Publish a compact change event, delivered to listeners after commit
+    private void publishChange(String action, SaleResponse current, SaleResponse previous) {
+        SaleResponse source = current != null ? current : previous;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("saleType", source.getSaleType());
+        data.put("date", source.getDate());
+        data.put("customer", source.getCustomer());
+        data.put("amount", source.getAmount());
+        data.put("status", source.getStatus());
+        eventPublisher.publishEvent(new ChangeEvent("sale", action, source.getSaleId(), data, current, previous));
+    }
+
     // Convert Sale entity to SaleResponse DTO
     private SaleResponse convertToResponse(Sale sale) {
         return new SaleResponse(
@@ -0,0 +1,643 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.SaleResponse;
+import com.pharmacy.app.util.LogHistogram;
+import com.pharmacy.app.util.Money;
+import com.pharmacy.app.util.PrefixIndex;
+import com.pharmacy.app.util.SalesColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+public class SalesAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesAnalyticsService.class);
+
+    // Ten years of daily groups
+    private static final int MAX_DAYS = 3660;
+
+    private static final int MAX_LIMIT = 1000;
+
+    // Customer filter that matches no sale
+    private static final int NO_CUSTOMER = -1;
+
+    // Months, counting the current one, with per-customer totals kept up to date on writes
+    private static final int MONTHS_KEPT = 24;
+
+    private static final int MAX_BINS = 100;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DictionaryService dictionaryService;
+
+    private final SalesColumns columns = new SalesColumns();
+
+    // Normalized customer name -> dense id, and id -> first spelling seen
+    private final Map<String, Integer> customerIds = new HashMap<>();
+    private final List<String> customerNames = new ArrayList<>();
+
+    // Month key (year * 12 + month - 1) -> totals per customer id, for recent months only
+    private final Map<Integer, MonthTotals> months = new HashMap<>();
+
+    // Amount histogram per day and sale type, keyed by histogramKey(day, type)
+    private final Map<Long, LogHistogram> histograms = new HashMap<>();
+
+    // Committed changes take the write lock; scans share the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private volatile boolean loaded;
+
+    // Stream every sale into the columns once the application is up. The write lock is
+    // held throughout, so a sale committed meanwhile is applied on top of the load
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL buffers the whole result unless asked to stream it row by row
+            boolean mySql = connection.getMetaData().getDatabaseProductName().contains("MySQL");
+            statement.setFetchSize(mySql ? Integer.MIN_VALUE : 5000);
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT sale_id, date, amount, status_code, sale_type_code, customer FROM sales")) {
+                while (rs.next()) {
+                    apply(rs.getLong(1), (int) rs.getDate(2).toLocalDate().toEpochDay(),
+                        Money.toCents(rs.getBigDecimal(3)), rs.getShort(4), rs.getShort(5),
+                        customerId(rs.getString(6)));
+                }
+            }
+            loaded = true;
+            logger.info("Sales analytics loaded: {} sales, {} customers in {} ms",
+                columns.size(), customerNames.size(), System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            logger.error("Could not load sales analytics: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Apply committed sale changes
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (!"sale".equals(event.getEntity())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (event.isDelete()) {
+                remove(event.getId());
+            } else {
+                SaleResponse sale = (SaleResponse) event.getRecord();
+                apply(sale.getSaleId(), (int) sale.getDate().toEpochDay(), Money.toCents(sale.getAmount()),
+                    dictionaryService.encode(DictionaryService.SALE_STATUS, sale.getStatus()),
+                    dictionaryService.encode(DictionaryService.SALE_TYPE, sale.getSaleType()),
+                    customerId(sale.getCustomer()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Count and total of the matching sales per day, month, type, status or customer.
+    // Day and month groups come in date order; the others by total, largest first
+    public AnalyticsResult query(String groupBy, LocalDate startDate, LocalDate endDate,
+                                 String saleType, String status, String customer, int limit) {
+        if (!loaded) {
+            throw new RuntimeException("Sales analytics are still loading");
+        }
+        SalesColumns.Dimension dimension = dimension(groupBy);
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        long start = System.nanoTime();
+
+        lock.readLock().lock();
+        try {
+            int fromDay = startDate != null ? (int) startDate.toEpochDay() : columns.minDay();
+            int toDay = endDate != null ? (int) endDate.toEpochDay() : columns.maxDay();
+            List<Group> groups = new ArrayList<>();
+            if (fromDay > toDay || columns.size() == 0) {
+                return new AnalyticsResult(dimension.name().toLowerCase(Locale.ROOT), null, null, groups, 0, BigDecimal.ZERO, elapsed(start));
+            }
+
+            int keyCount = switch (dimension) {
+                case DAY -> {
+                    if (toDay - fromDay >= MAX_DAYS) {
+                        throw new RuntimeException("Daily grouping is limited to " + MAX_DAYS + " days; group by month instead");
+                    }
+                    yield toDay - fromDay + 1;
+                }
+                case MONTH -> SalesColumns.monthCount(fromDay, toDay);
+                case TYPE -> dictionaryService.codeLimit(DictionaryService.SALE_TYPE);
+                case STATUS -> dictionaryService.codeLimit(DictionaryService.SALE_STATUS);
+                case CUSTOMER -> customerNames.size();
+            };
+
+            SalesColumns.Filter filter = new SalesColumns.Filter(fromDay, toDay,
+                code(DictionaryService.SALE_STATUS, status), code(DictionaryService.SALE_TYPE, saleType),
+                customer != null && !customer.isBlank()
+                    ? customerIds.getOrDefault(PrefixIndex.normalize(customer), NO_CUSTOMER)
+                    : SalesColumns.ANY);
+            SalesColumns.Groups totals = columns.groupBy(dimension, filter, keyCount, pool);
+
+            long totalCount = 0;
+            long totalCents = 0;
+            for (int key = 0; key < totals.keyCount(); key++) {
+                long count = totals.count(key);
+                if (count == 0) {
+                    continue;
+                }
+                totalCount += count;
+                totalCents += totals.cents(key);
+                groups.add(new Group(label(dimension, fromDay, key), count, totals.cents(key)));
+            }
+
+            if (dimension != SalesColumns.Dimension.DAY && dimension != SalesColumns.Dimension.MONTH) {
+                groups.sort(Comparator.comparingLong((Group group) -> group.cents).reversed()
+                    .thenComparing(Group::getKey, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+                if (groups.size() > limit) {
+                    groups = new ArrayList<>(groups.subList(0, limit));
+                }
+            }
+
+            return new AnalyticsResult(dimension.name().toLowerCase(Locale.ROOT),
+                LocalDate.ofEpochDay(fromDay), LocalDate.ofEpochDay(toDay),
+                groups, totalCount, Money.toBigDecimal(totalCents), elapsed(start));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The customers with the highest spend between two dates, in one pass with a bounded heap.
+    // Whole recent months without filters add up the running monthly totals; anything else scans
+    public TopCustomersResult topCustomers(LocalDate startDate, LocalDate endDate,
+                                           String saleType, String status, int limit) {
+        if (!loaded) {
+            throw new RuntimeException("Sales analytics are still loading");
+        }
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        LocalDate today = LocalDate.now();
+        LocalDate from = startDate != null ? startDate : today.withDayOfMonth(1);
+        LocalDate to = endDate != null ? endDate : today.withDayOfMonth(today.lengthOfMonth());
+        if (from.isAfter(to)) {
+            throw new RuntimeException("startDate must not be after endDate");
+        }
+        long start = System.nanoTime();
+
+        lock.readLock().lock();
+        try {
+            int customerCount = customerNames.size();
+            long[] counts;
+            long[] cents;
+            String source;
+            int firstMonth = monthKey(from);
+            int lastMonth = monthKey(to);
+            boolean wholeMonths = from.getDayOfMonth() == 1 && to.getDayOfMonth() == to.lengthOfMonth();
+            boolean unfiltered = (saleType == null || saleType.isBlank()) && (status == null || status.isBlank());
+
+            if (wholeMonths && unfiltered && firstMonth >= oldestMonthKept()) {
+                counts = new long[customerCount];
+                cents = new long[customerCount];
+                for (int month = firstMonth; month <= lastMonth; month++) {
+                    MonthTotals totals = months.get(month);
+                    if (totals == null) {
+                        continue;
+                    }
+                    int known = Math.min(totals.counts.length, customerCount);
+                    for (int customer = 0; customer < known; customer++) {
+                        counts[customer] += totals.counts[customer];
+                        cents[customer] += totals.cents[customer];
+                    }
+                }
+                source = "monthly-totals";
+            } else {
+                SalesColumns.Filter filter = new SalesColumns.Filter((int) from.toEpochDay(), (int) to.toEpochDay(),
+                    code(DictionaryService.SALE_STATUS, status), code(DictionaryService.SALE_TYPE, saleType),
+                    SalesColumns.ANY);
+                SalesColumns.Groups groups = columns.groupBy(SalesColumns.Dimension.CUSTOMER, filter, customerCount, pool);
+                counts = new long[customerCount];
+                cents = new long[customerCount];
+                for (int customer = 0; customer < customerCount; customer++) {
+                    counts[customer] = groups.count(customer);
+                    cents[customer] = groups.cents(customer);
+                }
+                source = "scan";
+            }
+
+            List<Group> top = new ArrayList<>();
+            for (int customer : top(counts, cents, limit)) {
+                top.add(new Group(customerNames.get(customer), counts[customer], cents[customer]));
+            }
+            return new TopCustomersResult(from, to, top, source, elapsed(start));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Percentiles and histogram of sale amounts, overall and per day or sale type, merged
+    // from the per-day histograms. All histograms share the same bins so they can be compared
+    public DistributionResult amountDistribution(LocalDate startDate, LocalDate endDate, String saleType,
+                                                 String groupBy, int bins) {
+        if (!loaded) {
+            throw new RuntimeException("Sales analytics are still loading");
+        }
+        String grouping = groupBy != null && !groupBy.isBlank() ? groupBy.trim().toLowerCase(Locale.ROOT) : "none";
+        if (!grouping.equals("none") && !grouping.equals("day") && !grouping.equals("type")) {
+            throw new RuntimeException("Invalid groupBy: " + groupBy + " (use none, day or type)");
+        }
+        bins = Math.max(1, Math.min(bins, MAX_BINS));
+        long start = System.nanoTime();
+
+        lock.readLock().lock();
+        try {
+            int fromDay = startDate != null ? (int) startDate.toEpochDay() : columns.minDay();
+            int toDay = endDate != null ? (int) endDate.toEpochDay() : columns.maxDay();
+            if (fromDay <= toDay && toDay - fromDay >= MAX_DAYS) {
+                throw new RuntimeException("Date range is limited to " + MAX_DAYS + " days");
+            }
+            int typeFilter = code(DictionaryService.SALE_TYPE, saleType);
+            int typeCount = dictionaryService.codeLimit(DictionaryService.SALE_TYPE);
+
+            LogHistogram overall = new LogHistogram();
+            Map<String, LogHistogram> groups = new LinkedHashMap<>();
+            for (int day = fromDay; day <= toDay; day++) {
+                for (int type = 0; type < typeCount; type++) {
+                    if (typeFilter != SalesColumns.ANY && type != typeFilter) {
+                        continue;
+                    }
+                    LogHistogram histogram = histograms.get(histogramKey(day, (short) type));
+                    if (histogram == null) {
+                        continue;
+                    }
+                    overall.merge(histogram);
+                    if (!grouping.equals("none")) {
+                        String key = grouping.equals("day")
+                            ? LocalDate.ofEpochDay(day).toString()
+                            : dictionaryService.decode(DictionaryService.SALE_TYPE, (short) type);
+                        groups.computeIfAbsent(key, k -> new LogHistogram()).merge(histogram);
+                    }
+                }
+            }
+
+            int minIndex = overall.minIndex();
+            int maxIndex = overall.maxIndex();
+            List<Distribution> distributions = new ArrayList<>();
+            for (Map.Entry<String, LogHistogram> entry : groups.entrySet()) {
+                distributions.add(new Distribution(entry.getKey(), entry.getValue(), minIndex, maxIndex, bins));
+            }
+            if (grouping.equals("type")) {
+                distributions.sort(Comparator.comparing(Distribution::getKey, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+            }
+
+            return new DistributionResult(
+                fromDay <= toDay ? LocalDate.ofEpochDay(fromDay) : null,
+                fromDay <= toDay ? LocalDate.ofEpochDay(toDay) : null,
+                grouping, new Distribution(null, overall, minIndex, maxIndex, bins), distributions, elapsed(start));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Drop running totals of months that have left the window
+    @Scheduled(cron = "0 5 0 * * *")
+    public void pruneMonths() {
+        lock.writeLock().lock();
+        try {
+            months.keySet().removeIf(month -> month < oldestMonthKept());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of the largest totals, largest first. A min-heap of at most limit entries
+    // holds the best seen so far; its root is the one to beat
+    private static List<Integer> top(long[] counts, long[] cents, int limit) {
+        Comparator<Integer> byTotal = Comparator.<Integer>comparingLong(id -> cents[id])
+            .thenComparing(Comparator.<Integer>naturalOrder().reversed());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, byTotal);
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] == 0) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(id);
+            } else if (byTotal.compare(id, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(id);
+            }
+        }
+        List<Integer> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    // Caller holds the write lock. Replaces the row and moves its amount between monthly totals
+    private void apply(long id, int day, long amountCents, short status, short type, int customer) {
+        int row = columns.row(id);
+        if (row >= 0) {
+            addToMonth(columns.day(row), columns.customer(row), -1, -columns.cents(row));
+            addToHistogram(columns.day(row), columns.type(row), columns.cents(row), -1);
+        }
+        columns.upsert(id, day, amountCents, status, type, customer);
+        addToMonth(day, customer, 1, amountCents);
+        addToHistogram(day, type, amountCents, 1);
+    }
+
+    // Caller holds the write lock
+    private void remove(long id) {
+        int row = columns.row(id);
+        if (row >= 0) {
+            addToMonth(columns.day(row), columns.customer(row), -1, -columns.cents(row));
+            addToHistogram(columns.day(row), columns.type(row), columns.cents(row), -1);
+            columns.delete(id);
+        }
+    }
+
+    private void addToHistogram(int day, short type, long amountCents, int count) {
+        long key = histogramKey(day, type);
+        LogHistogram histogram = histograms.computeIfAbsent(key, k -> new LogHistogram());
+        histogram.add(amountCents, count);
+        if (histogram.isEmpty()) {
+            histograms.remove(key);
+        }
+    }
+
+    private static long histogramKey(int day, short type) {
+        return ((long) day << 16) | (type & 0xFFFF);
+    }
+
+    private void addToMonth(int day, int customer, long count, long amountCents) {
+        int month = monthKey(LocalDate.ofEpochDay(day));
+        if (month < oldestMonthKept()) {
+            return;
+        }
+        MonthTotals totals = months.computeIfAbsent(month, key -> new MonthTotals());
+        totals.add(customer, count, amountCents);
+    }
+
+    private static int monthKey(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static int oldestMonthKept() {
+        return monthKey(LocalDate.now()) - (MONTHS_KEPT - 1);
+    }
+
+    private SalesColumns.Dimension dimension(String groupBy) {
+        if (groupBy == null || groupBy.isBlank()) {
+            return SalesColumns.Dimension.DAY;
+        }
+        return switch (groupBy.trim().toLowerCase(Locale.ROOT)) {
+            case "day", "date" -> SalesColumns.Dimension.DAY;
+            case "month" -> SalesColumns.Dimension.MONTH;
+            case "type", "saletype" -> SalesColumns.Dimension.TYPE;
+            case "status" -> SalesColumns.Dimension.STATUS;
+            case "customer" -> SalesColumns.Dimension.CUSTOMER;
+            default -> throw new RuntimeException("Invalid groupBy: " + groupBy + " (use day, month, type, status or customer)");
+        };
+    }
+
+    // Dictionary code of a filter value; unknown values match nothing
+    private int code(String domain, String value) {
+        return value != null && !value.isBlank() ? dictionaryService.encode(domain, value.trim()) : SalesColumns.ANY;
+    }
+
+    private String label(SalesColumns.Dimension dimension, int fromDay, int key) {
+        return switch (dimension) {
+            case DAY -> LocalDate.ofEpochDay(fromDay + key).toString();
+            case MONTH -> YearMonth.from(LocalDate.ofEpochDay(fromDay)).plusMonths(key).toString();
+            case TYPE -> dictionaryService.decode(DictionaryService.SALE_TYPE, (short) key);
+            case STATUS -> dictionaryService.decode(DictionaryService.SALE_STATUS, (short) key);
+            case CUSTOMER -> customerNames.get(key);
+        };
+    }
+
+    // Caller holds the write lock
+    private int customerId(String customer) {
+        String key = PrefixIndex.normalize(customer);
+        Integer id = customerIds.get(key);
+        if (id == null) {
+            id = customerNames.size();
+            customerIds.put(key, id);
+            customerNames.add(customer.trim());
+        }
+        return id;
+    }
+
+    private static double elapsed(long startNanos) {
+        return Math.round((System.nanoTime() - startNanos) / 10_000.0) / 100.0;
+    }
+
+    // Running count and total per customer id for one month
+    private static final class MonthTotals {
+        private long[] counts = new long[0];
+        private long[] cents = new long[0];
+
+        private void add(int customer, long count, long amountCents) {
+            if (customer >= counts.length) {
+                int capacity = Math.max(customer + 1, counts.length * 2);
+                counts = Arrays.copyOf(counts, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+            }
+            counts[customer] += count;
+            cents[customer] += amountCents;
+        }
+    }
+
+    // One group of an analytics query
+    public static class Group {
+        private final String key;
+        private final long count;
+        private final long cents;
+
+        public Group(String key, long count, long cents) {
+            this.key = key;
+            this.count = count;
+            this.cents = cents;
+        }
+
+        // Getters
+        public String getKey() { return key; }
+        public long getCount() { return count; }
+        public BigDecimal getTotal() { return Money.toBigDecimal(cents); }
+    }
+
+    // Inner class for analytics query results
+    public static class AnalyticsResult {
+        private final String groupBy;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final List<Group> groups;
+        private final long totalCount;
+        private final BigDecimal totalAmount;
+        private final double tookMs;
+
+        public AnalyticsResult(String groupBy, LocalDate startDate, LocalDate endDate, List<Group> groups,
+                               long totalCount, BigDecimal totalAmount, double tookMs) {
+            this.groupBy = groupBy;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.groups = groups;
+            this.totalCount = totalCount;
+            this.totalAmount = totalAmount;
+            this.tookMs = tookMs;
+        }
+
+        // Getters
+        public String getGroupBy() { return groupBy; }
+        public LocalDate getStartDate() { return startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public List<Group> getGroups() { return groups; }
+        public long getTotalCount() { return totalCount; }
+        public BigDecimal getTotalAmount() { return totalAmount; }
+        public double getTookMs() { return tookMs; }
+    }
+
+    // One bin of an amount histogram: amounts above from, up to and including to
+    public static class Bin {
+        private final BigDecimal from;
+        private final BigDecimal to;
+        private final long count;
+
+        public Bin(BigDecimal from, BigDecimal to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        // Getters
+        public BigDecimal getFrom() { return from; }
+        public BigDecimal getTo() { return to; }
+        public long getCount() { return count; }
+    }
+
+    // Percentiles and histogram of one set of sale amounts
+    public static class Distribution {
+        private final String key;
+        private final long count;
+        private final BigDecimal p50;
+        private final BigDecimal p90;
+        private final BigDecimal p99;
+        private final List<Bin> histogram = new ArrayList<>();
+
+        // Bins split the buckets minIndex..maxIndex into equal runs, i.e. equal ratios of amount
+        public Distribution(String key, LogHistogram amounts, int minIndex, int maxIndex, int bins) {
+            this.key = key;
+            this.count = amounts.count();
+            this.p50 = Money.toBigDecimal(amounts.quantile(0.50));
+            this.p90 = Money.toBigDecimal(amounts.quantile(0.90));
+            this.p99 = Money.toBigDecimal(amounts.quantile(0.99));
+            if (amounts.zeroCount() != 0) {
+                histogram.add(new Bin(BigDecimal.ZERO.setScale(Money.SCALE), BigDecimal.ZERO.setScale(Money.SCALE), amounts.zeroCount()));
+            }
+            if (minIndex > maxIndex) {
+                return;
+            }
+            int width = (maxIndex - minIndex + bins) / bins;
+            for (int first = minIndex; first <= maxIndex; first += width) {
+                int last = Math.min(first + width - 1, maxIndex);
+                histogram.add(new Bin(centsToAmount(LogHistogram.lowerBound(first)),
+                    centsToAmount(LogHistogram.upperBound(last)), amounts.countBetween(first, last)));
+            }
+        }
+
+        private static BigDecimal centsToAmount(double cents) {
+            return Money.toBigDecimal(Math.round(cents));
+        }
+
+        // Getters
+        public String getKey() { return key; }
+        public long getCount() { return count; }
+        public BigDecimal getP50() { return p50; }
+        public BigDecimal getP90() { return p90; }
+        public BigDecimal getP99() { return p99; }
+        public List<Bin> getHistogram() { return histogram; }
+    }
+
+    // Inner class for amount distribution results
+    public static class DistributionResult {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final String groupBy;
+        private final Distribution overall;
+        private final List<Distribution> groups;
+        private final double tookMs;
+
+        public DistributionResult(LocalDate startDate, LocalDate endDate, String groupBy,
+                                  Distribution overall, List<Distribution> groups, double tookMs) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.groupBy = groupBy;
+            this.overall = overall;
+            this.groups = groups;
+            this.tookMs = tookMs;
+        }
+
+        // Getters
+        public LocalDate getStartDate() { return startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public String getGroupBy() { return groupBy; }
+        public Distribution getOverall() { return overall; }
+        public List<Distribution> getGroups() { return groups; }
+        public double getRelativeAccuracy() { return LogHistogram.RELATIVE_ACCURACY; }
+        public double getTookMs() { return tookMs; }
+    }
+
+    // Inner class for top customer results
+    public static class TopCustomersResult {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final List<Group> customers;
+        private final String source;
+        private final double tookMs;
+
+        public TopCustomersResult(LocalDate startDate, LocalDate endDate, List<Group> customers,
+                                  String source, double tookMs) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.customers = customers;
+            this.source = source;
+            this.tookMs = tookMs;
+        }
+
+        // Getters
+        public LocalDate getStartDate() { return startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public List<Group> getCustomers() { return customers; }
+        public String getSource() { return source; }
+        public double getTookMs() { return tookMs; }
+    }
+}
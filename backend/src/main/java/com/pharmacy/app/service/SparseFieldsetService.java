@@ -0,0 +1,145 @@
+package com.pharmacy.app.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Transactional(readOnly = true)
+public class SparseFieldsetService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DictionaryService dictionaryService;
+
+    // Parse a comma separated ?fields= value against the selectable fields of a collection
+    public List<String> parseFields(String fields, Set<String> selectable) {
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!selectable.contains(name)) {
+                throw new RuntimeException("Unknown field: " + name);
+            }
+            parsed.add(name);
+        }
+        if (parsed.isEmpty()) {
+            throw new RuntimeException("At least one field is required");
+        }
+        return new ArrayList<>(parsed);
+    }
+
+    // Select only the requested columns, one page at a time
+    public <T> Page<Map<String, Object>> findPage(Class<T> entityClass, List<String> fields,
+                                                 List<String> searchAttributes, String search,
+                                                 Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        query.multiselect(selections(root, fields));
+        Predicate predicate = searchPredicate(cb, root, searchAttributes, search);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize());
+        List<Map<String, Object>> content = toRows(typedQuery.getResultList(), fields);
+
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<T> countRoot = countQuery.from(entityClass);
+        countQuery.select(cb.count(countRoot));
+        Predicate countPredicate = searchPredicate(cb, countRoot, searchAttributes, search);
+        if (countPredicate != null) {
+            countQuery.where(countPredicate);
+        }
+        long total = entityManager.createQuery(countQuery).getSingleResult();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // Select only the requested columns of every row
+    public <T> List<Map<String, Object>> findAll(Class<T> entityClass, List<String> fields, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        query.multiselect(selections(root, fields));
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return toRows(entityManager.createQuery(query).getResultList(), fields);
+    }
+
+    private List<Selection<?>> selections(Root<?> root, List<String> fields) {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields) {
+            selections.add(root.get(field).alias(field));
+        }
+        return selections;
+    }
+
+    // Same LOWER(x) LIKE '%search%' semantics as the repository search queries
+    private Predicate searchPredicate(CriteriaBuilder cb, Root<?> root, List<String> attributes, String search) {
+        if (search == null || search.trim().isEmpty()) {
+            return null;
+        }
+        String pattern = "%" + search.trim().toLowerCase() + "%";
+        List<Predicate> predicates = new ArrayList<>();
+        for (String attribute : attributes) {
+            String domain = dictionaryService.domainOf(root.getJavaType(), attribute);
+            if (domain == null) {
+                predicates.add(cb.like(cb.lower(root.get(attribute)), pattern));
+                continue;
+            }
+            // Encoded columns hold codes, so match the values that contain the search text
+            List<String> values = dictionaryService.valuesContaining(domain, search);
+            if (!values.isEmpty()) {
+                predicates.add(root.get(attribute).in(values));
+            }
+        }
+        if (predicates.isEmpty()) {
+            return cb.disjunction();
+        }
+        return cb.or(predicates.toArray(new Predicate[0]));
+    }
+
+    private List<Map<String, Object>> toRows(List<Tuple> tuples, List<String> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                row.put(field, tuple.get(field));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,363 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.dto.EquipmentResponse;
+import com.pharmacy.app.dto.MedicineResponse;
+import com.pharmacy.app.entity.StockMovement;
+import com.pharmacy.app.entity.StockSnapshot;
+import com.pharmacy.app.repository.StockMovementRepository;
+import com.pharmacy.app.repository.StockSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class StockLedgerService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedgerService.class);
+
+    public static final String MEDICINE = "medicine";
+    public static final String EQUIPMENT = "equipment";
+
+    public static final String RECEIPT = "RECEIPT";
+    public static final String SALE = "SALE";
+    public static final String ADJUSTMENT = "ADJUSTMENT";
+    public static final String EXPIRY_WRITE_OFF = "EXPIRY_WRITE_OFF";
+
+    private static final Set<String> MOVEMENT_TYPES = Set.of(RECEIPT, SALE, ADJUSTMENT, EXPIRY_WRITE_OFF);
+
+    // Stock table and columns per item type
+    private static final Map<String, String[]> ITEM_TABLES = Map.of(
+        MEDICINE, new String[] {"medicines", "medicine_name", "no_of_medicines"},
+        EQUIPMENT, new String[] {"equipment", "equipment_name", "no_of_equipments"});
+
+    private static final String INSERT =
+        "INSERT INTO stock_movements (item_type, item_id, movement_type, quantity, reference, occurred_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_REFERENCE_LENGTH = 100;
+
+    // Movements of an item between snapshots, which bounds the rows read for any balance
+    @Value("${pharmacy.ledger.snapshot-every:100}")
+    private int snapshotEvery;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Snapshots are taken off the request path; this one thread owns the counters below
+    private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "stock-ledger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Movements committed per item ("type:id") since its last snapshot. An item's first
+    // movement after startup reads the count from the ledger, so movements of earlier runs
+    // and of other nodes are included; at the threshold the ledger decides again
+    private final Map<String, Integer> sinceSnapshot = new HashMap<>();
+
+    // Record an opening balance for items that have none. This runs before the web server
+    // takes requests, so no stock change can be both opened and recorded
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Map.Entry<String, String[]> entry : ITEM_TABLES.entrySet()) {
+            openBalances(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Movement type of a stock change: the requested one, checked against the direction of
+    // the change, or RECEIPT for an increase and SALE for a decrease
+    public static String resolveMovementType(String requested, int change) {
+        if (requested == null || requested.isBlank()) {
+            return change >= 0 ? RECEIPT : SALE;
+        }
+        String type = requested.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace(' ', '_');
+        if (!MOVEMENT_TYPES.contains(type)) {
+            throw new IllegalArgumentException("Invalid movementType: " + requested +
+                " (use RECEIPT, SALE, ADJUSTMENT or EXPIRY_WRITE_OFF)");
+        }
+        if (type.equals(RECEIPT) && change < 0) {
+            throw new IllegalArgumentException("A RECEIPT must increase stock");
+        }
+        if ((type.equals(SALE) || type.equals(EXPIRY_WRITE_OFF)) && change > 0) {
+            throw new IllegalArgumentException("A " + type + " must decrease stock");
+        }
+        return type;
+    }
+
+    // Append a movement for every change in stock, in the transaction of the change so the
+    // two commit or roll back together. Creating an item receives its stock, deleting it
+    // adjusts to zero, edits are adjustments unless the write says otherwise
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void recordMovement(ChangeEvent event) {
+        Object[] row = movementOf(event);
+        if (row != null) {
+            jdbcTemplate.update(INSERT, row);
+        }
+    }
+
+    // Count committed movements towards the next snapshot of their item
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (movementOf(event) == null) {
+            return;
+        }
+        String itemType = event.getEntity();
+        Long itemId = event.getId();
+        snapshotter.execute(() -> countMovement(itemType, itemId));
+    }
+
+    // Finish pending snapshots before the data source closes
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Movements of one item, newest first
+    public Page<StockMovement> getMovements(String itemType, Long itemId, int page, int size) {
+        return stockMovementRepository.findByItemTypeAndItemIdOrderByIdDesc(itemType(itemType), itemId,
+            PageRequest.of(page, size));
+    }
+
+    // Stock of an item at a point in time, or now: the latest snapshot at or before it plus
+    // the movements after that snapshot, which are at most snapshot-every rows
+    public BalanceResult getBalance(String itemType, Long itemId, LocalDateTime at) {
+        String type = itemType(itemType);
+        Optional<StockSnapshot> snapshot = at != null
+            ? stockSnapshotRepository.findFirstByItemTypeAndItemIdAndAsOfLessThanEqualOrderByLastMovementIdDesc(type, itemId, at)
+            : stockSnapshotRepository.findFirstByItemTypeAndItemIdOrderByLastMovementIdDesc(type, itemId);
+        long afterId = snapshot.map(StockSnapshot::getLastMovementId).orElse(0L);
+        int base = snapshot.map(StockSnapshot::getBalance).orElse(0);
+
+        String sql = "SELECT COALESCE(SUM(quantity), 0) AS total, COUNT(*) AS movements FROM stock_movements " +
+            "WHERE item_type = ? AND item_id = ? AND movement_id > ?";
+        Map<String, Object> tail = at != null
+            ? jdbcTemplate.queryForMap(sql + " AND occurred_at <= ?", type, itemId, afterId, Timestamp.valueOf(at))
+            : jdbcTemplate.queryForMap(sql, type, itemId, afterId);
+        int balance = base + ((Number) tail.get("total")).intValue();
+
+        Integer currentStock = null;
+        if (at == null) {
+            String[] table = ITEM_TABLES.get(type);
+            try {
+                currentStock = jdbcTemplate.queryForObject(
+                    "SELECT " + table[2] + " FROM " + table[0] + " WHERE id = ?", Integer.class, itemId);
+            } catch (EmptyResultDataAccessException e) {
+                currentStock = 0;
+            }
+        }
+        return new BalanceResult(type, itemId, at, balance, snapshot.orElse(null),
+            ((Number) tail.get("movements")).intValue(), currentStock);
+    }
+
+    // Units written off and adjusted away per item over a date range, largest loss first
+    public List<Map<String, Object>> getShrinkage(String itemType, LocalDate startDate, LocalDate endDate, int limit) {
+        String type = itemType(itemType);
+        String[] table = ITEM_TABLES.get(type);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "SELECT m.item_id, MIN(i." + table[1] + ") AS item_name, " +
+            "SUM(CASE WHEN m.movement_type = 'EXPIRY_WRITE_OFF' THEN -m.quantity ELSE 0 END) AS written_off, " +
+            "SUM(CASE WHEN m.movement_type = 'ADJUSTMENT' THEN -m.quantity ELSE 0 END) AS adjusted_away, " +
+            "COUNT(*) AS movements " +
+            "FROM stock_movements m LEFT JOIN " + table[0] + " i ON i.id = m.item_id " +
+            "WHERE m.item_type = ? AND m.occurred_at >= ? AND m.occurred_at < ? AND m.quantity < 0 " +
+            "AND m.movement_type IN ('EXPIRY_WRITE_OFF', 'ADJUSTMENT') " +
+            "GROUP BY m.item_id ORDER BY SUM(-m.quantity) DESC LIMIT ?",
+            type, Timestamp.valueOf(startDate.atStartOfDay()), Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()),
+            Math.max(1, Math.min(limit, 1000)));
+        List<Map<String, Object>> shrinkage = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("itemId", ((Number) value(row, "item_id")).longValue());
+            item.put("itemName", value(row, "item_name"));
+            item.put("writtenOff", ((Number) value(row, "written_off")).longValue());
+            item.put("adjustedAway", ((Number) value(row, "adjusted_away")).longValue());
+            item.put("movements", ((Number) value(row, "movements")).longValue());
+            shrinkage.add(item);
+        }
+        return shrinkage;
+    }
+
+    // Insert parameters of the movement a change makes, or null when stock did not change
+    private Object[] movementOf(ChangeEvent event) {
+        Integer before;
+        Integer after;
+        if (MEDICINE.equals(event.getEntity())) {
+            before = event.getPrevious() != null ? ((MedicineResponse) event.getPrevious()).getNoOfMedicines() : null;
+            after = event.getRecord() != null ? ((MedicineResponse) event.getRecord()).getNoOfMedicines() : null;
+        } else if (EQUIPMENT.equals(event.getEntity())) {
+            before = event.getPrevious() != null ? ((EquipmentResponse) event.getPrevious()).getNoOfEquipments() : null;
+            after = event.getRecord() != null ? ((EquipmentResponse) event.getRecord()).getNoOfEquipments() : null;
+        } else {
+            return null;
+        }
+        int change = (after != null ? after : 0) - (before != null ? before : 0);
+        if (change == 0) {
+            return null;
+        }
+
+        Object requested = event.getData().get("movementType");
+        String type;
+        String reference = (String) event.getData().get("reference");
+        if (requested != null) {
+            type = requested.toString();
+        } else if ("created".equals(event.getAction())) {
+            type = RECEIPT;
+            reference = reference != null ? reference : "created";
+        } else if (event.isDelete()) {
+            type = ADJUSTMENT;
+            reference = reference != null ? reference : "deleted";
+        } else {
+            type = ADJUSTMENT;
+        }
+        if (reference != null && reference.length() > MAX_REFERENCE_LENGTH) {
+            reference = reference.substring(0, MAX_REFERENCE_LENGTH);
+        }
+
+        return new Object[] {event.getEntity(), event.getId(), type, change, reference,
+            Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getTimestamp()), ZoneId.systemDefault()))};
+    }
+
+    private void countMovement(String itemType, Long itemId) {
+        String key = itemType + ":" + itemId;
+        try {
+            Integer counted = sinceSnapshot.get(key);
+            int count = counted != null ? counted + 1 : snapshot(itemType, itemId, Integer.MAX_VALUE);
+            if (count >= snapshotEvery) {
+                count = snapshot(itemType, itemId, snapshotEvery);
+            }
+            sinceSnapshot.put(key, count);
+        } catch (Exception e) {
+            logger.warn("Could not snapshot stock of {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Fold the movements after an item's latest snapshot into a new one once there are at
+    // least minMovements of them. Returns how many movements follow the latest snapshot after
+    private int snapshot(String itemType, Long itemId, int minMovements) {
+        Optional<StockSnapshot> latest = stockSnapshotRepository.findFirstByItemTypeAndItemIdOrderByLastMovementIdDesc(itemType, itemId);
+        long afterId = latest.map(StockSnapshot::getLastMovementId).orElse(0L);
+        Map<String, Object> tail = jdbcTemplate.queryForMap(
+            "SELECT COALESCE(SUM(quantity), 0) AS total, COUNT(*) AS movements, MAX(movement_id) AS last_id, " +
+            "MAX(occurred_at) AS last_at FROM stock_movements WHERE item_type = ? AND item_id = ? AND movement_id > ?",
+            itemType, itemId, afterId);
+        int movements = ((Number) value(tail, "movements")).intValue();
+        if (movements == 0 || movements < minMovements) {
+            return movements;
+        }
+        StockSnapshot snapshot = new StockSnapshot();
+        snapshot.setItemType(itemType);
+        snapshot.setItemId(itemId);
+        snapshot.setBalance(latest.map(StockSnapshot::getBalance).orElse(0) + ((Number) value(tail, "total")).intValue());
+        snapshot.setLastMovementId(((Number) value(tail, "last_id")).longValue());
+        Object lastAt = value(tail, "last_at");
+        snapshot.setAsOf(lastAt instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) lastAt);
+        snapshot.setTakenAt(LocalDateTime.now());
+        stockSnapshotRepository.save(snapshot);
+        return 0;
+    }
+
+    // Opening balance for stock that predates the ledger, so balances add up from the start
+    private void openBalances(String itemType, String[] table) {
+        try {
+            int opened = jdbcTemplate.update(
+                "INSERT INTO stock_movements (item_type, item_id, movement_type, quantity, reference, occurred_at) " +
+                "SELECT ?, i.id, ?, i." + table[2] + ", 'opening balance', ? FROM " + table[0] + " i " +
+                "WHERE i." + table[2] + " <> 0 AND NOT EXISTS (SELECT 1 FROM stock_movements m " +
+                "WHERE m.item_type = ? AND m.item_id = i.id)",
+                itemType, ADJUSTMENT, Timestamp.valueOf(LocalDateTime.now()), itemType);
+            if (opened > 0) {
+                logger.info("Recorded opening stock balances for {} {} items", opened, itemType);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not record opening {} stock balances: {}", itemType, e.getMessage());
+        }
+    }
+
+    private static String itemType(String itemType) {
+        String type = itemType != null ? itemType.trim().toLowerCase(Locale.ROOT) : "";
+        if (!ITEM_TABLES.containsKey(type)) {
+            throw new IllegalArgumentException("Invalid item type: " + itemType + " (use medicine or equipment)");
+        }
+        return type;
+    }
+
+    // Column labels come back upper-case from some drivers
+    private static Object value(Map<String, Object> row, String column) {
+        Object value = row.get(column);
+        return value != null ? value : row.get(column.toUpperCase(Locale.ROOT));
+    }
+
+    // Inner class for a reconstructed stock balance
+    public static class BalanceResult {
+        private final String itemType;
+        private final Long itemId;
+        private final LocalDateTime at;
+        private final int balance;
+        private final StockSnapshot snapshot;
+        private final int tailMovements;
+        private final Integer currentStock;
+
+        public BalanceResult(String itemType, Long itemId, LocalDateTime at, int balance, StockSnapshot snapshot,
+                             int tailMovements, Integer currentStock) {
+            this.itemType = itemType;
+            this.itemId = itemId;
+            this.at = at;
+            this.balance = balance;
+            this.snapshot = snapshot;
+            this.tailMovements = tailMovements;
+            this.currentStock = currentStock;
+        }
+
+        // Getters
+        public String getItemType() { return itemType; }
+        public Long getItemId() { return itemId; }
+        public LocalDateTime getAt() { return at; }
+        public int getBalance() { return balance; }
+        public StockSnapshot getSnapshot() { return snapshot; }
+        public int getTailMovements() { return tailMovements; }
+        // Stock on the item itself, only for the current balance
+        public Integer getCurrentStock() { return currentStock; }
+        // Non-zero only if stock was changed outside the application
+        public Integer getDrift() { return currentStock != null ? currentStock - balance : null; }
+    }
+}
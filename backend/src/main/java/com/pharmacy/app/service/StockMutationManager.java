@@ -0,0 +1,166 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.util.StripedLock;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.OptimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Serializes writes to the stock of an item within this node with a striped lock, so
+// checkouts of different items never wait on each other. Across nodes the item's @Version
+// catches a write based on a stale read, and reservations lock the item row; the mutation
+// then reruns on fresh rows. The stripes are released as the transaction completes, before
+// its after-commit listeners run, so a listener that changes an item (e.g. releasing the
+// holds of a deleted one) never waits while holding another
+@Service
+public class StockMutationManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockMutationManager.class);
+
+    @Value("${pharmacy.stock.lock-stripes:256}")
+    private int lockStripes;
+
+    // Tries of a mutation that keeps losing to other nodes, and the base wait between them
+    @Value("${pharmacy.stock.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${pharmacy.stock.retry-backoff-ms:10}")
+    private long retryBackoffMs;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private StripedLock locks;
+
+    @PostConstruct
+    public void init() {
+        locks = new StripedLock(lockStripes);
+    }
+
+    // Run a change to the stock of one item in its own transaction
+    public <T> T mutate(String itemType, Long itemId, Supplier<T> mutation) {
+        return mutateAll(List.of(key(itemType, itemId)), mutation, null);
+    }
+
+    public <T> T mutateAll(Collection<String> keys, Supplier<T> mutation) {
+        return mutateAll(keys, mutation, null);
+    }
+
+    // Run a change to several items ("type:id") in one transaction. A caller that changes
+    // more than one item must lock them all here up front, so locks are taken in stripe order.
+    // onCommit, if given, runs after the commit while the items are still locked.
+    // Inside a caller's transaction the stripes are held until it completes and there is no
+    // retry; a conflict surfaces when that transaction commits
+    public <T> T mutateAll(Collection<String> keys, Supplier<T> mutation, Runnable onCommit) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new Held(locks.lockAll(keys), onCommit));
+            return mutation.get();
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            // Locked before the transaction starts, so a writer waiting here holds no connection
+            Held held = new Held(locks.lockAll(keys), onCommit);
+            try {
+                return transaction.execute(status -> {
+                    TransactionSynchronizationManager.registerSynchronization(held);
+                    return mutation.get();
+                });
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    logger.warn("Stock of {} kept changing on another node; gave up after {} attempts", keys, attempt);
+                    throw new IllegalStateException("Stock of " + String.join(", ", keys) +
+                        " is being changed elsewhere, please retry");
+                }
+                logger.debug("Stock of {} changed on another node, retrying (attempt {})", keys, attempt);
+                backOff(attempt);
+            } finally {
+                held.release();
+            }
+        }
+    }
+
+    public static String key(String itemType, Long itemId) {
+        return itemType + ":" + itemId;
+    }
+
+    // A version check or a row lock lost to a concurrent writer, possibly wrapped
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException || cause instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stripes of one mutation, released as its transaction completes. Ordered first, so they
+    // are free before any other synchronization, after-commit event listeners included
+    private final class Held implements TransactionSynchronization {
+        private final int[] stripes;
+        private final Runnable onCommit;
+        private boolean released;
+
+        private Held(int[] stripes, Runnable onCommit) {
+            this.stripes = stripes;
+            this.onCommit = onCommit;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            try {
+                if (onCommit != null && !released) {
+                    onCommit.run();
+                }
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            release();
+        }
+
+        // Once only; also called when the transaction never started
+        private void release() {
+            if (!released) {
+                released = true;
+                locks.unlockAll(stripes);
+            }
+        }
+    }
+
+    // Growing, jittered wait so nodes that collided do not collide again in step
+    private void backOff(int attempt) {
+        long wait = retryBackoffMs * attempt + ThreadLocalRandom.current().nextLong(retryBackoffMs + 1);
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a stock change", e);
+        }
+    }
+}
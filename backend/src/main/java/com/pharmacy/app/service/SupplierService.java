@@ -1,10 +1,12 @@
 package com.pharmacy.app.service;
 
+import com.pharmacy.app.dto.ChangeEvent;
 import com.pharmacy.app.dto.SupplierRequest;
 import com.pharmacy.app.dto.SupplierResponse;
 import com.pharmacy.app.entity.Supplier;
 import com.pharmacy.app.repository.SupplierRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,15 +16,34 @@ import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class SupplierService {
     
+    private static final Set<String> SELECTABLE_FIELDS = Set.of("supplierId", "supplierName", "company", "email", "phoneNumber", "supplyType");
+    
+    private static final List<String> SEARCH_FIELDS = List.of("supplierName", "company", "email");
+    
     @Autowired
     private SupplierRepository supplierRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private SparseFieldsetService sparseFieldsetService;
+    
+    @Autowired
+    private DictionaryService dictionaryService;
+    
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+    
     @PersistenceContext
     private EntityManager entityManager;
     
@@ -40,14 +61,16 @@ public class SupplierService {
         supplier.setCompany(request.getCompany());
         supplier.setEmail(request.getEmail());
         supplier.setPhoneNumber(request.getPhoneNumber());
-        supplier.setSupplyType(request.getSupplyType());
+        supplier.setSupplyType(dictionaryService.register(DictionaryService.SUPPLY_TYPE, request.getSupplyType()));
         
         Supplier savedSupplier = supplierRepository.save(supplier);
         
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(savedSupplier);
+        SupplierResponse response = convertToResponse(savedSupplier);
+        publishChange("created", response, null);
+        return response;
     }
     
     // Update existing supplier
@@ -63,19 +86,23 @@ public class SupplierService {
             }
         }
         
+        SupplierResponse previous = convertToResponse(supplier);
+        
         // Update supplier fields
         supplier.setSupplierName(request.getSupplierName());
         supplier.setCompany(request.getCompany());
         supplier.setEmail(request.getEmail());
         supplier.setPhoneNumber(request.getPhoneNumber());
-        supplier.setSupplyType(request.getSupplyType());
+        supplier.setSupplyType(dictionaryService.register(DictionaryService.SUPPLY_TYPE, request.getSupplyType()));
         
         Supplier updatedSupplier = supplierRepository.save(supplier);
         
         // Force flush and commit
         entityManager.flush();
         
-        return convertToResponse(updatedSupplier);
+        SupplierResponse response = convertToResponse(updatedSupplier);
+        publishChange("updated", response, previous);
+        return response;
     }
     
     // Get supplier by ID
@@ -85,6 +112,12 @@ public class SupplierService {
         return convertToResponse(supplier);
     }
     
+    // Get suppliers by IDs, keyed by ID
+    public Map<Long, SupplierResponse> getSuppliersByIds(List<Long> ids) {
+        return supplierRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Supplier::getSupplierId, this::convertToResponse));
+    }
+    
     // Get all suppliers with pagination
     public Page<SupplierResponse> getAllSuppliers(int page, int size, String sortBy, String sortDir, String search) {
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
@@ -94,7 +127,7 @@ public class SupplierService {
         
         Page<Supplier> suppliers;
         if (search != null && !search.trim().isEmpty()) {
-            suppliers = supplierRepository.findSuppliersWithSearch(search.trim(), pageable);
+            suppliers = catalogSearchService.searchSuppliers(search.trim(), pageable);
         } else {
             suppliers = supplierRepository.findAll(pageable);
         }
@@ -102,6 +135,16 @@ public class SupplierService {
         return suppliers.map(this::convertToResponse);
     }
     
+    // Get selected supplier fields with pagination
+    public Page<Map<String, Object>> getSupplierFields(int page, int size, String sortBy, String sortDir, String search, String fields) {
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        
+        Pageable pageable = PageRequest.of(page, size, sort);
+        List<String> selected = sparseFieldsetService.parseFields(fields, SELECTABLE_FIELDS);
+        return sparseFieldsetService.findPage(Supplier.class, selected, SEARCH_FIELDS, search, pageable);
+    }
+    
     // Get suppliers by supply type
     public List<SupplierResponse> getSuppliersByType(String supplyType) {
         List<Supplier> suppliers = supplierRepository.findBySupplyType(supplyType);
@@ -116,10 +159,14 @@ public class SupplierService {
         Supplier supplier = supplierRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Supplier not found with id: " + id));
         
+        SupplierResponse previous = convertToResponse(supplier);
+        
         supplierRepository.delete(supplier);
         
         // Force flush and commit
         entityManager.flush();
+        
+        publishChange("deleted", null, previous);
     }
     
     // Get supplier statistics
@@ -133,7 +180,9 @@ public class SupplierService {
     
     // Get distinct supply types
     public List<String> getDistinctSupplyTypes() {
-        return supplierRepository.findDistinctSupplyTypes();
+        return supplierRepository.findDistinctSupplyTypes().stream()
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .collect(Collectors.toList());
     }
     
     // Get distinct companies
@@ -141,6 +190,15 @@ public class SupplierService {
         return supplierRepository.findDistinctCompanies();
     }
     
+    // Publish a compact change event, delivered to listeners after commit
+    private void publishChange(String action, SupplierResponse current, SupplierResponse previous) {
+        SupplierResponse source = current != null ? current : previous;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("supplierName", source.getSupplierName());
+        data.put("company", source.getCompany());
+        eventPublisher.publishEvent(new ChangeEvent("supplier", action, source.getSupplierId(), data, current, previous));
+    }
+    
     // Helper method to convert Supplier entity to SupplierResponse
     private SupplierResponse convertToResponse(Supplier supplier) {
         return new SupplierResponse(
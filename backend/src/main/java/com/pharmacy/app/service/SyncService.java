@@ -0,0 +1,170 @@
+package com.pharmacy.app.service;
+
+import com.pharmacy.app.dto.ChangeEvent;
+import com.pharmacy.app.entity.ChangeLogEntry;
+import com.pharmacy.app.repository.ChangeLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+@Service
+public class SyncService {
+
+    // Sales and payments are logged only so collection versions can be read from the log;
+    // sync serves the catalog entities
+    private static final Set<String> LOGGED_ENTITIES = Set.of("medicine", "customer", "supplier", "equipment", "sale", "payment");
+
+    private static final int MAX_LIMIT = 5000;
+
+    // A version gap younger than this may belong to a transaction that has not committed yet
+    static final long SETTLE_SECONDS = 5;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private MedicineService medicineService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private EquipmentService equipmentService;
+
+    // Record catalog changes in the same transaction as the write
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void recordChange(ChangeEvent event) {
+        if (!LOGGED_ENTITIES.contains(event.getEntity())) {
+            return;
+        }
+        String operation = event.isDelete() ? "DELETE" : "UPSERT";
+        changeLogRepository.save(new ChangeLogEntry(event.getEntity(), event.getId(), operation));
+    }
+
+    // Get rows changed since a sync version, collapsed to their latest state. Equipment is
+    // left out unless the caller may see it; its entries still advance the version
+    @Transactional(readOnly = true)
+    public SyncResult getChangesSince(long since, int limit, boolean equipment) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<ChangeLogEntry> entries = changeLogRepository.findByVersionGreaterThanOrderByVersionAsc(
+            since, PageRequest.of(0, pageSize));
+
+        LocalDateTime settledBefore = LocalDateTime.now().minusSeconds(SETTLE_SECONDS);
+        Map<String, Map<Long, String>> latestOperations = new LinkedHashMap<>();
+        for (String entity : List.of("medicine", "customer", "supplier", "equipment")) {
+            if (equipment || !"equipment".equals(entity)) {
+                latestOperations.put(entity, new LinkedHashMap<>());
+            }
+        }
+
+        long version = since;
+        boolean hasMore = entries.size() == pageSize;
+        for (ChangeLogEntry entry : entries) {
+            // Stop at a fresh gap so a late commit is not skipped by the client
+            if (entry.getVersion() != version + 1 && entry.getChangedAt().isAfter(settledBefore)) {
+                hasMore = true;
+                break;
+            }
+            Map<Long, String> operations = latestOperations.get(entry.getEntityType());
+            if (operations != null) {
+                operations.remove(entry.getEntityId());
+                operations.put(entry.getEntityId(), entry.getOperation());
+            }
+            version = entry.getVersion();
+        }
+
+        SyncResult result = new SyncResult(since, version, hasMore);
+        result.put("medicines", collect(latestOperations.get("medicine"), medicineService::getMedicinesByIds));
+        result.put("customers", collect(latestOperations.get("customer"), customerService::getCustomersByIds));
+        result.put("suppliers", collect(latestOperations.get("supplier"), supplierService::getSuppliersByIds));
+        if (equipment) {
+            result.put("equipment", collect(latestOperations.get("equipment"), equipmentService::getEquipmentByIds));
+        }
+        return result;
+    }
+
+    // Get latest sync version
+    public long getLatestVersion() {
+        return changeLogRepository.getLatestVersion();
+    }
+
+    private <T> EntityChanges collect(Map<Long, String> operations, Function<List<Long>, Map<Long, T>> loader) {
+        List<Long> upsertIds = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        operations.forEach((id, operation) -> {
+            if ("DELETE".equals(operation)) {
+                deletes.add(id);
+            } else {
+                upsertIds.add(id);
+            }
+        });
+
+        List<Object> upserts = new ArrayList<>();
+        if (!upsertIds.isEmpty()) {
+            Map<Long, T> rows = loader.apply(upsertIds);
+            for (Long id : upsertIds) {
+                T row = rows.get(id);
+                if (row != null) {
+                    upserts.add(row);
+                } else {
+                    // Deleted after this window, the DELETE entry follows in a later page
+                    deletes.add(id);
+                }
+            }
+        }
+        return new EntityChanges(upserts, deletes);
+    }
+
+    // Sync result inner class
+    public static class SyncResult {
+        private long since;
+        private long version;
+        private boolean hasMore;
+        private Map<String, EntityChanges> changes = new LinkedHashMap<>();
+
+        public SyncResult(long since, long version, boolean hasMore) {
+            this.since = since;
+            this.version = version;
+            this.hasMore = hasMore;
+        }
+
+        void put(String collection, EntityChanges entityChanges) {
+            changes.put(collection, entityChanges);
+        }
+
+        // Getters
+        public long getSince() { return since; }
+        public long getVersion() { return version; }
+        public boolean isHasMore() { return hasMore; }
+        public Map<String, EntityChanges> getChanges() { return changes; }
+    }
+
+    // Per-collection upserts and tombstones
+    public static class EntityChanges {
+        private List<Object> upserts;
+        private List<Long> deletes;
+
+        public EntityChanges(List<Object> upserts, List<Long> deletes) {
+            this.upserts = upserts;
+            this.deletes = deletes;
+        }
+
+        // Getters
+        public List<Object> getUpserts() { return upserts; }
+        public List<Long> getDeletes() { return deletes; }
+    }
+}
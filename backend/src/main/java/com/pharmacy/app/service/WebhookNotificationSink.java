@@ -0,0 +1,70 @@
+package com.pharmacy.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.app.dto.NotificationDigest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Posts each digest as JSON to a configured URL; disabled while the URL is empty
+@Service
+public class WebhookNotificationSink implements NotificationSink {
+
+    private static final int ATTEMPTS = 3;
+
+    @Value("${pharmacy.notifications.webhook.url:}")
+    private String url;
+
+    @Value("${pharmacy.notifications.webhook.timeout-seconds:5}")
+    private int timeoutSeconds;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return url != null && !url.isBlank();
+    }
+
+    // A few attempts with growing pauses; the receiver can de-duplicate on the digest id
+    @Override
+    public void deliver(NotificationDigest digest) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url.trim()))
+            .timeout(Duration.ofSeconds(timeoutSeconds))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(digest)))
+            .build();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() < 300) {
+                    return;
+                }
+                if (response.statusCode() < 500 || attempt == ATTEMPTS) {
+                    throw new RuntimeException("Webhook returned status " + response.statusCode());
+                }
+            } catch (IOException e) {
+                if (attempt == ATTEMPTS) {
+                    throw e;
+                }
+            }
+            Thread.sleep(1000L * attempt);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.pharmacy.app.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Burkhard-Keller tree over normalized names for bounded edit-distance lookups.
+// Full names and each word of three or more letters are indexed, so a misspelt
+// word still finds a multi-word name. Built once and read without locking.
+public final class BkTree {
+
+    private static final BkTree EMPTY = new BkTree(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private BkTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static BkTree empty() {
+        return EMPTY;
+    }
+
+    // Build a tree from id -> display name
+    public static BkTree build(Map<Long, String> entries) {
+        Map<String, List<Long>> idsByKey = new HashMap<>();
+        for (Map.Entry<Long, String> entry : entries.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isBlank()) {
+                continue;
+            }
+            String normalized = PrefixIndex.normalize(entry.getValue());
+            idsByKey.computeIfAbsent(normalized, key -> new ArrayList<>()).add(entry.getKey());
+            String[] words = normalized.split(" ");
+            if (words.length > 1) {
+                for (String word : words) {
+                    if (word.length() >= 3) {
+                        idsByKey.computeIfAbsent(word, key -> new ArrayList<>()).add(entry.getKey());
+                    }
+                }
+            }
+        }
+
+        Node root = null;
+        for (Map.Entry<String, List<Long>> entry : idsByKey.entrySet()) {
+            Node node = new Node(entry.getKey(), entry.getValue());
+            if (root == null) {
+                root = node;
+            } else {
+                root.insert(node);
+            }
+        }
+        return new BkTree(root, idsByKey.size());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Ids within maxDistance of the term, closest first; each id appears once
+    public List<Hit> search(String term, int maxDistance, int limit) {
+        if (root == null) {
+            return List.of();
+        }
+        char[] query = PrefixIndex.normalize(term).toCharArray();
+        Map<Long, Hit> best = new HashMap<>();
+        int[][] rows = new int[2][query.length + 1];
+
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            // Past this bound neither the node nor any child can match, so the exact value is not needed
+            int bound = Math.max(maxDistance, node.maxChildDistance + maxDistance);
+            int distance = distance(node.chars, query, bound, rows);
+            if (distance <= maxDistance) {
+                for (Long id : node.ids) {
+                    Hit existing = best.get(id);
+                    if (existing == null || distance < existing.getDistance()) {
+                        best.put(id, new Hit(id, node.key, distance));
+                    }
+                }
+            }
+            // Triangle inequality: only children at distance +/- maxDistance can match
+            for (int i = 0; i < node.childCount; i++) {
+                int childDistance = node.childDistances[i];
+                if (childDistance >= distance - maxDistance && childDistance <= distance + maxDistance) {
+                    stack.push(node.children[i]);
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best.values());
+        hits.sort(Comparator.comparingInt(Hit::getDistance).thenComparing(Hit::getKey));
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    // Levenshtein distance with two rolling rows
+    static int distance(String a, String b) {
+        return distance(a.toCharArray(), b.toCharArray(), Integer.MAX_VALUE, new int[2][b.length() + 1]);
+    }
+
+    // Levenshtein distance, or bound + 1 as soon as the result is known to exceed bound
+    private static int distance(char[] a, char[] b, int bound, int[][] rows) {
+        if (Math.abs(a.length - b.length) > bound) {
+            return bound + 1;
+        }
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        for (int j = 0; j <= b.length; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char ca = a[i - 1];
+            for (int j = 1; j <= b.length; j++) {
+                int cost = ca == b[j - 1] ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                current[j] = value;
+                if (value < rowMin) {
+                    rowMin = value;
+                }
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length];
+    }
+
+    private static final class Node {
+        private final String key;
+        private final char[] chars;
+        private final List<Long> ids;
+        private int[] childDistances = new int[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private int maxChildDistance;
+
+        private Node(String key, List<Long> ids) {
+            this.key = key;
+            this.chars = key.toCharArray();
+            this.ids = ids;
+        }
+
+        private void insert(Node node) {
+            Node current = this;
+            while (true) {
+                int distance = distance(node.key, current.key);
+                Node child = current.child(distance);
+                if (child == null) {
+                    current.addChild(distance, node);
+                    return;
+                }
+                current = child;
+            }
+        }
+
+        private Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node node) {
+            if (childCount == children.length) {
+                int capacity = Math.max(4, childCount * 2);
+                childDistances = Arrays.copyOf(childDistances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            childDistances[childCount] = distance;
+            children[childCount] = node;
+            childCount++;
+            maxChildDistance = Math.max(maxChildDistance, distance);
+        }
+    }
+
+    public static final class Hit {
+        private final long id;
+        private final String key;
+        private final int distance;
+
+        public Hit(long id, String key, int distance) {
+            this.id = id;
+            this.key = key;
+            this.distance = distance;
+        }
+
+        public long getId() { return id; }
+        public String getKey() { return key; }
+        public int getDistance() { return distance; }
+    }
+}
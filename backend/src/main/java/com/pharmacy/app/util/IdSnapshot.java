@@ -0,0 +1,151 @@
+package com.pharmacy.app.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// Immutable id -> record table with secondary groups and a presorted listing.
+// Writers build a new instance and publish it; readers never lock. Records carry a version,
+// and a change never replaces a record with an older version of it
+public final class IdSnapshot<T> {
+
+    private final long[] ids;
+    private final Object[] records;
+    private final Map<String, int[]> groups;
+    private final int[] ordered;
+
+    private final ToLongFunction<T> idOf;
+    private final ToLongFunction<T> versionOf;
+    private final Function<T, String> groupOf;
+    private final Comparator<T> order;
+
+    private IdSnapshot(long[] ids, Object[] records, Map<String, int[]> groups, int[] ordered,
+                       ToLongFunction<T> idOf, ToLongFunction<T> versionOf, Function<T, String> groupOf,
+                       Comparator<T> order) {
+        this.ids = ids;
+        this.records = records;
+        this.groups = groups;
+        this.ordered = ordered;
+        this.idOf = idOf;
+        this.versionOf = versionOf;
+        this.groupOf = groupOf;
+        this.order = order;
+    }
+
+    // groupOf may return null for records outside any group
+    public static <T> IdSnapshot<T> build(Collection<T> source, ToLongFunction<T> idOf, ToLongFunction<T> versionOf,
+                                          Function<T, String> groupOf, Comparator<T> order) {
+        List<T> sorted = new ArrayList<>(source);
+        sorted.sort(Comparator.comparingLong(idOf));
+
+        int size = sorted.size();
+        long[] ids = new long[size];
+        Object[] records = new Object[size];
+        Map<String, List<Integer>> grouped = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            T record = sorted.get(i);
+            ids[i] = idOf.applyAsLong(record);
+            records[i] = record;
+            String group = groupOf.apply(record);
+            if (group != null) {
+                grouped.computeIfAbsent(group, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, int[]> groups = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : grouped.entrySet()) {
+            groups.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        Integer[] positions = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (a, b) -> order.compare(sorted.get(a), sorted.get(b)));
+        int[] ordered = Arrays.stream(positions).mapToInt(Integer::intValue).toArray();
+
+        return new IdSnapshot<>(ids, records, groups, ordered, idOf, versionOf, groupOf, order);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // Record with the given id, or null
+    @SuppressWarnings("unchecked")
+    public T get(long id) {
+        int position = Arrays.binarySearch(ids, id);
+        return position >= 0 ? (T) records[position] : null;
+    }
+
+    // Records of one group in id order
+    public List<T> group(String key) {
+        int[] positions = groups.get(key);
+        return positions != null ? view(positions) : List.of();
+    }
+
+    // All records in the snapshot's listing order
+    public List<T> ordered() {
+        return view(ordered);
+    }
+
+    // New snapshot with the record added or replaced, unless the snapshot holds a newer version
+    public IdSnapshot<T> withRecord(T record) {
+        return withChanges(List.of(record), List.of());
+    }
+
+    // New snapshot without the given id
+    public IdSnapshot<T> without(long id) {
+        if (Arrays.binarySearch(ids, id) < 0) {
+            return this;
+        }
+        return withChanges(List.of(), List.of(id));
+    }
+
+    // New snapshot with records added or replaced and ids removed, rebuilt once.
+    // An upsert older than the record it would replace is dropped
+    public IdSnapshot<T> withChanges(Collection<T> upserts, Collection<Long> deletes) {
+        Set<Long> replaced = new HashSet<>(deletes);
+        List<T> accepted = new ArrayList<>(upserts.size());
+        for (T record : upserts) {
+            T current = get(idOf.applyAsLong(record));
+            if (current == null || versionOf.applyAsLong(record) >= versionOf.applyAsLong(current)) {
+                replaced.add(idOf.applyAsLong(record));
+                accepted.add(record);
+            }
+        }
+        if (replaced.isEmpty()) {
+            return this;
+        }
+        List<T> next = new ArrayList<>(records.length + accepted.size());
+        for (int i = 0; i < records.length; i++) {
+            if (!replaced.contains(ids[i])) {
+                next.add(record(i));
+            }
+        }
+        next.addAll(accepted);
+        return build(next, idOf, versionOf, groupOf, order);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T record(int position) {
+        return (T) records[position];
+    }
+
+    private List<T> view(int[] positions) {
+        List<T> list = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            list.add(record(position));
+        }
+        return Collections.unmodifiableList(list);
+    }
+}
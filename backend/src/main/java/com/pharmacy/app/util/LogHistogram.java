@@ -0,0 +1,135 @@
+package com.pharmacy.app.util;
+
+import java.util.Arrays;
+
+// Histogram of positive values over logarithmic buckets, so any quantile is within 1% of
+// the true value whatever the scale. Bucket i holds values in (GAMMA^(i-1), GAMMA^i].
+// Counts may go down as well as up, and histograms merge by adding counts. Not thread safe
+public final class LogHistogram {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    // Only the span between the lowest and highest bucket ever used is stored
+    private int[] counts = new int[0];
+    private int offset;
+    private long zeroCount;
+    private long total;
+
+    // Bucket of a value; values of zero or less are counted apart
+    public static int index(long value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    public static double lowerBound(int index) {
+        return Math.pow(GAMMA, index - 1);
+    }
+
+    public static double upperBound(int index) {
+        return Math.pow(GAMMA, index);
+    }
+
+    // Add count occurrences of a value; a negative count takes them away again
+    public void add(long value, int count) {
+        total += count;
+        if (value <= 0) {
+            zeroCount += count;
+            return;
+        }
+        int index = index(value);
+        ensure(index);
+        counts[index - offset] += count;
+    }
+
+    public LogHistogram merge(LogHistogram other) {
+        total += other.total;
+        zeroCount += other.zeroCount;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int index = other.offset + i;
+                ensure(index);
+                counts[index - offset] += other.counts[i];
+            }
+        }
+        return this;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public long zeroCount() {
+        return zeroCount;
+    }
+
+    // Lowest and highest non-empty bucket; minIndex() > maxIndex() when there are none
+    public int minIndex() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                return offset + i;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    public int maxIndex() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return offset + i;
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    // Count of the values in buckets fromIndex..toIndex inclusive
+    public long countBetween(int fromIndex, int toIndex) {
+        long count = 0;
+        int from = Math.max(fromIndex - offset, 0);
+        int to = Math.min(toIndex - offset, counts.length - 1);
+        for (int i = from; i <= to; i++) {
+            count += counts[i];
+        }
+        return count;
+    }
+
+    // Value at quantile q (0..1), within RELATIVE_ACCURACY of the exact one; 0 when empty
+    public long quantile(double q) {
+        if (total <= 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(Math.max(0, Math.min(1, q)) * (total - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // Midpoint of the bucket in relative terms
+                return Math.round(2 * upperBound(offset + i) / (GAMMA + 1));
+            }
+        }
+        return Math.round(2 * upperBound(offset + counts.length - 1) / (GAMMA + 1));
+    }
+
+    private void ensure(int index) {
+        if (counts.length == 0) {
+            counts = new int[8];
+            offset = index - 4;
+        } else if (index < offset) {
+            int grow = Math.max(offset - index, counts.length / 2);
+            int[] grown = new int[counts.length + grow];
+            System.arraycopy(counts, 0, grown, grow, counts.length);
+            counts = grown;
+            offset -= grow;
+        } else if (index >= offset + counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length + counts.length / 2));
+        }
+    }
+}
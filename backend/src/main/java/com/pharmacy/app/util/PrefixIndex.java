@@ -0,0 +1,219 @@
+package com.pharmacy.app.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+
+// Prefix index over entity names, stored as sorted parallel arrays.
+// Every word of a name is indexed, so "smi" finds "John Smith". Names are fixed;
+// a change of name means building a new instance, so readers never lock.
+// Weights can change in place: a max segment tree over the keys ranks the whole
+// range of a prefix, however short, in O(k log n) for the top k.
+public final class PrefixIndex {
+
+    private static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new long[0], new String[0], new int[0], Map.of());
+
+    // A leaf ranks by weight, then by its name's place in (length, name) order; both are
+    // packed into one long so a single max finds the best leaf of a range
+    private static final int RANK_BITS = 24;
+    private static final long MAX_RANK = (1L << RANK_BITS) - 1;
+    private static final long MAX_WEIGHT = (1L << (63 - RANK_BITS)) - 1;
+
+    private final String[] keys;
+    private final long[] ids;
+    private final String[] names;
+
+    // Tie-break rank of each leaf: 0 for the shortest, alphabetically first name
+    private final int[] ranks;
+
+    // Leaves of each normalized name, for weight updates
+    private final Map<String, int[]> leavesByName;
+
+    // Max segment tree; leaf i is at size + i
+    private final int size;
+    private final AtomicLongArray tree;
+
+    private PrefixIndex(String[] keys, long[] ids, String[] names, int[] ranks, Map<String, int[]> leavesByName) {
+        this.keys = keys;
+        this.ids = ids;
+        this.names = names;
+        this.ranks = ranks;
+        this.leavesByName = leavesByName;
+        this.size = Integer.highestOneBit(Math.max(1, keys.length - 1)) << 1;
+        this.tree = new AtomicLongArray(2 * size);
+        for (int i = 0; i < 2 * size; i++) {
+            tree.set(i, -1);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            tree.set(size + i, pack(0, ranks[i]));
+        }
+        for (int node = size - 1; node > 0; node--) {
+            tree.set(node, Math.max(tree.get(2 * node), tree.get(2 * node + 1)));
+        }
+    }
+
+    public static PrefixIndex empty() {
+        return EMPTY;
+    }
+
+    // Build an index from id -> display name; every weight starts at zero
+    public static PrefixIndex build(Map<Long, String> entries) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : entries.entrySet()) {
+            String name = entry.getValue();
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            String normalized = normalize(name);
+            rows.add(new Object[] { normalized, entry.getKey(), name, normalized });
+            // Also index the tail starting at each later word
+            for (int i = 1; i < normalized.length(); i++) {
+                if (normalized.charAt(i - 1) == ' ' && normalized.charAt(i) != ' ') {
+                    rows.add(new Object[] { normalized.substring(i), entry.getKey(), name, normalized });
+                }
+            }
+        }
+        rows.sort(Comparator.comparing(row -> (String) row[0]));
+
+        // Shorter names first, then alphabetical, as suggestions of equal weight are ranked
+        List<String> order = new ArrayList<>(new HashSet<>(rows.stream().map(row -> (String) row[2]).toList()));
+        order.sort(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+        Map<String, Integer> rankByName = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            rankByName.put(order.get(i), (int) Math.min(i, MAX_RANK));
+        }
+
+        String[] keys = new String[rows.size()];
+        long[] ids = new long[rows.size()];
+        String[] names = new String[rows.size()];
+        int[] ranks = new int[rows.size()];
+        Map<String, List<Integer>> leaves = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            keys[i] = (String) rows.get(i)[0];
+            ids[i] = (Long) rows.get(i)[1];
+            names[i] = (String) rows.get(i)[2];
+            ranks[i] = rankByName.get(names[i]);
+            leaves.computeIfAbsent((String) rows.get(i)[3], key -> new ArrayList<>()).add(i);
+        }
+        Map<String, int[]> leavesByName = new HashMap<>();
+        leaves.forEach((name, list) -> leavesByName.put(name, list.stream().mapToInt(Integer::intValue).toArray()));
+        return new PrefixIndex(keys, ids, names, ranks, leavesByName);
+    }
+
+    public static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    // Set the weight of every entry with a normalized name, read under the index lock so the
+    // last of several concurrent updates always writes the newest value
+    public synchronized void updateWeight(String normalizedName, ToLongFunction<String> weight) {
+        int[] leaves = leavesByName.get(normalizedName);
+        if (leaves == null) {
+            return;
+        }
+        long value = weight.applyAsLong(normalizedName);
+        for (int leaf : leaves) {
+            int node = size + leaf;
+            tree.set(node, pack(value, ranks[leaf]));
+            for (node >>= 1; node > 0; node >>= 1) {
+                tree.set(node, Math.max(tree.get(2 * node), tree.get(2 * node + 1)));
+            }
+        }
+    }
+
+    // Set the weight of every name
+    public void updateWeights(ToLongFunction<String> weight) {
+        for (String name : leavesByName.keySet()) {
+            updateWeight(name, weight);
+        }
+    }
+
+    // Top-k names starting with the prefix, highest weight first, then shortest, then alphabetical
+    public List<Match> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int start = lowerBound(normalized);
+        int end = lowerBound(normalized + Character.MAX_VALUE);
+        if (start >= end) {
+            return List.of();
+        }
+
+        // Best first over the tree nodes covering [start, end): a node's value bounds every leaf below it
+        PriorityQueue<long[]> frontier = new PriorityQueue<>((a, b) -> Long.compare(b[0], a[0]));
+        for (int low = start + size, high = end + size; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                frontier.add(new long[] { tree.get(low), low++ });
+            }
+            if ((high & 1) == 1) {
+                --high;
+                frontier.add(new long[] { tree.get(high), high });
+            }
+        }
+
+        List<Match> result = new ArrayList<>(limit);
+        // A name indexed under several words must only be suggested once
+        Set<Long> seen = new HashSet<>();
+        while (!frontier.isEmpty() && result.size() < limit) {
+            int node = (int) frontier.poll()[1];
+            if (node >= size) {
+                int leaf = node - size;
+                if (seen.add(ids[leaf])) {
+                    result.add(new Match(ids[leaf], names[leaf], tree.get(node) >> RANK_BITS));
+                }
+            } else {
+                frontier.add(new long[] { tree.get(2 * node), 2 * node });
+                frontier.add(new long[] { tree.get(2 * node + 1), 2 * node + 1 });
+            }
+        }
+        return result;
+    }
+
+    private static long pack(long weight, int rank) {
+        long clamped = Math.max(0, Math.min(weight, MAX_WEIGHT));
+        return (clamped << RANK_BITS) | (MAX_RANK - rank);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static final class Match {
+        private final long id;
+        private final String name;
+        private final long score;
+
+        public Match(long id, String name, long score) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+        public long getScore() { return score; }
+    }
+}
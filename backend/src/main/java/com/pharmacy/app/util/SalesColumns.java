@@ -0,0 +1,290 @@
+package com.pharmacy.app.util;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Sales held as parallel primitive columns, one row per sale, ordered by sale id.
+// Deletes leave a tombstone until the next full load. Not thread safe: callers
+// hold a write lock for changes and a read lock while scanning
+public final class SalesColumns {
+
+    // Dimensions a scan can group by
+    public enum Dimension { DAY, MONTH, TYPE, STATUS, CUSTOMER }
+
+    // Matches every code
+    public static final int ANY = Integer.MIN_VALUE;
+
+    private static final int MIN_CHUNK = 1 << 16;
+
+    private long[] ids = new long[1024];
+    private int[] days = new int[1024];
+    private long[] cents = new long[1024];
+    private short[] statuses = new short[1024];
+    private short[] types = new short[1024];
+    private int[] customers = new int[1024];
+    private long[] deleted = new long[1024 / 64];
+    private int size;
+    private int live;
+    private int minDay = Integer.MAX_VALUE;
+    private int maxDay = Integer.MIN_VALUE;
+
+    public int size() {
+        return live;
+    }
+
+    // Earliest and latest sale day ever stored; empty when minDay > maxDay
+    public int minDay() {
+        return minDay;
+    }
+
+    public int maxDay() {
+        return maxDay;
+    }
+
+    // Insert or replace the row of a sale
+    public void upsert(long id, int day, long amountCents, short status, short type, int customer) {
+        int row = find(id);
+        if (row < 0) {
+            row = insertAt(-row - 1, id);
+            live++;
+        } else if (isDeleted(row)) {
+            deleted[row >>> 6] &= ~(1L << row);
+            live++;
+        }
+        days[row] = day;
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+        cents[row] = amountCents;
+        statuses[row] = status;
+        types[row] = type;
+        customers[row] = customer;
+    }
+
+    public void delete(long id) {
+        int row = find(id);
+        if (row >= 0 && !isDeleted(row)) {
+            deleted[row >>> 6] |= 1L << row;
+            live--;
+        }
+    }
+
+    // Row of a live sale, or -1
+    public int row(long id) {
+        int row = find(id);
+        return row >= 0 && !isDeleted(row) ? row : -1;
+    }
+
+    public int day(int row) {
+        return days[row];
+    }
+
+    public short type(int row) {
+        return types[row];
+    }
+
+    public int customer(int row) {
+        return customers[row];
+    }
+
+    public long cents(int row) {
+        return cents[row];
+    }
+
+    // Count and total per group of the rows that pass the filter. Keys are dense:
+    // day and month offsets from the filter start, dictionary codes, customer ids
+    public Groups groupBy(Dimension dimension, Filter filter, int keyCount, ForkJoinPool pool) {
+        int[] dayKeys = null;
+        if (dimension == Dimension.DAY || dimension == Dimension.MONTH) {
+            dayKeys = dayKeys(dimension, filter.fromDay, filter.toDay);
+        }
+        int chunk = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 4) + 1);
+        return pool.invoke(new ScanTask(dimension, filter, keyCount, dayKeys, 0, size, chunk));
+    }
+
+    // Number of month keys between two days
+    public static int monthCount(int fromDay, int toDay) {
+        LocalDate from = LocalDate.ofEpochDay(fromDay);
+        LocalDate to = LocalDate.ofEpochDay(toDay);
+        return (to.getYear() - from.getYear()) * 12 + to.getMonthValue() - from.getMonthValue() + 1;
+    }
+
+    // Day offset -> group key, so the scan does no date arithmetic
+    private static int[] dayKeys(Dimension dimension, int fromDay, int toDay) {
+        int[] keys = new int[toDay - fromDay + 1];
+        LocalDate first = LocalDate.ofEpochDay(fromDay);
+        for (int i = 0; i < keys.length; i++) {
+            if (dimension == Dimension.DAY) {
+                keys[i] = i;
+            } else {
+                LocalDate day = first.plusDays(i);
+                keys[i] = (day.getYear() - first.getYear()) * 12 + day.getMonthValue() - first.getMonthValue();
+            }
+        }
+        return keys;
+    }
+
+    private boolean isDeleted(int row) {
+        return (deleted[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private int find(long id) {
+        // Sales arrive in id order, so the common case is a miss past the end
+        if (size == 0 || id > ids[size - 1]) {
+            return -(size + 1);
+        }
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    private int insertAt(int row, long id) {
+        if (size == ids.length) {
+            grow();
+        }
+        if (row < size) {
+            // Out-of-order commit; shift the tail one place, tombstones included
+            int tail = size - row;
+            System.arraycopy(ids, row, ids, row + 1, tail);
+            System.arraycopy(days, row, days, row + 1, tail);
+            System.arraycopy(cents, row, cents, row + 1, tail);
+            System.arraycopy(statuses, row, statuses, row + 1, tail);
+            System.arraycopy(types, row, types, row + 1, tail);
+            System.arraycopy(customers, row, customers, row + 1, tail);
+            for (int i = size; i > row; i--) {
+                setDeleted(i, isDeleted(i - 1));
+            }
+            setDeleted(row, false);
+        }
+        ids[row] = id;
+        size++;
+        return row;
+    }
+
+    private void setDeleted(int row, boolean value) {
+        if (value) {
+            deleted[row >>> 6] |= 1L << row;
+        } else {
+            deleted[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        days = Arrays.copyOf(days, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        types = Arrays.copyOf(types, capacity);
+        customers = Arrays.copyOf(customers, capacity);
+        deleted = Arrays.copyOf(deleted, capacity / 64);
+    }
+
+    private final class ScanTask extends RecursiveTask<Groups> {
+        private final Dimension dimension;
+        private final Filter filter;
+        private final int keyCount;
+        private final int[] dayKeys;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        private ScanTask(Dimension dimension, Filter filter, int keyCount, int[] dayKeys, int from, int to, int chunk) {
+            this.dimension = dimension;
+            this.filter = filter;
+            this.keyCount = keyCount;
+            this.dayKeys = dayKeys;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Groups compute() {
+            if (to - from > chunk) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(dimension, filter, keyCount, dayKeys, from, middle, chunk);
+                left.fork();
+                Groups right = new ScanTask(dimension, filter, keyCount, dayKeys, middle, to, chunk).compute();
+                return left.join().merge(right);
+            }
+            return scan();
+        }
+
+        private Groups scan() {
+            Groups groups = new Groups(keyCount);
+            long[] counts = groups.counts;
+            long[] totals = groups.cents;
+            int fromDay = filter.fromDay;
+            int toDay = filter.toDay;
+            int status = filter.status;
+            int type = filter.type;
+            int customer = filter.customer;
+
+            for (int row = from; row < to; row++) {
+                int day = days[row];
+                if (day < fromDay || day > toDay
+                        || (status != ANY && statuses[row] != status)
+                        || (type != ANY && types[row] != type)
+                        || (customer != ANY && customers[row] != customer)
+                        || (deleted[row >>> 6] & (1L << row)) != 0) {
+                    continue;
+                }
+                int key = switch (dimension) {
+                    case DAY, MONTH -> dayKeys[day - fromDay];
+                    case TYPE -> types[row];
+                    case STATUS -> statuses[row];
+                    case CUSTOMER -> customers[row];
+                };
+                if (key < 0 || key >= keyCount) {
+                    continue;
+                }
+                counts[key]++;
+                totals[key] += cents[row];
+            }
+            return groups;
+        }
+    }
+
+    // Scan filter; day bounds are inclusive, codes may be ANY
+    public static final class Filter {
+        private final int fromDay;
+        private final int toDay;
+        private final int status;
+        private final int type;
+        private final int customer;
+
+        public Filter(int fromDay, int toDay, int status, int type, int customer) {
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.status = status;
+            this.type = type;
+            this.customer = customer;
+        }
+
+        public int getFromDay() { return fromDay; }
+        public int getToDay() { return toDay; }
+    }
+
+    // Dense per-key counts and cent totals
+    public static final class Groups {
+        private final long[] counts;
+        private final long[] cents;
+
+        private Groups(int keyCount) {
+            this.counts = new long[keyCount];
+            this.cents = new long[keyCount];
+        }
+
+        private Groups merge(Groups other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                cents[i] += other.cents[i];
+            }
+            return this;
+        }
+
+        public int keyCount() { return counts.length; }
+        public long count(int key) { return counts[key]; }
+        public long cents(int key) { return cents[key]; }
+    }
+}
@@ -0,0 +1,52 @@
+package com.pharmacy.app.util;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fixed set of locks shared by hash, so writers to different keys rarely wait on each other
+// without a lock per key. Several keys are always locked in stripe order, so two callers
+// locking overlapping sets cannot deadlock
+public final class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(int stripes) {
+        // A power of two, so a stripe is a mask of the spread hash
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public int stripe(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return hash & (stripes.length - 1);
+    }
+
+    public void lock(Object key) {
+        stripes[stripe(key)].lock();
+    }
+
+    public void unlock(Object key) {
+        stripes[stripe(key)].unlock();
+    }
+
+    // Lock the stripes of every key; returns them for unlockAll
+    public int[] lockAll(Collection<?> keys) {
+        int[] indexes = keys.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        return indexes;
+    }
+
+    public void unlockAll(int[] indexes) {
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.pharmacy.app.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hashed timing wheel: timers hash into slots by deadline tick, and a slot fires only the
+// timers whose turn of the wheel has come, so adding and cancelling are O(1) and each tick
+// visits one slot. Timers fire up to one tick late. Thread safe
+public final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final Slot<T>[] slots;
+    private final int mask;
+
+    // Next tick to process, in ticks since the epoch
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int size, long nowMs) {
+        this.tickMs = tickMs;
+        int wheelSize = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        this.slots = new Slot[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new Slot<>();
+        }
+        this.mask = wheelSize - 1;
+        this.currentTick = nowMs / tickMs;
+    }
+
+    // Schedule a value; the returned timer cancels it
+    public synchronized Timer<T> schedule(T value, long deadlineMs) {
+        long tick = Math.max(currentTick, (deadlineMs + tickMs - 1) / tickMs);
+        Timer<T> timer = new Timer<>(value, tick);
+        slots[(int) (tick & mask)].add(timer);
+        return timer;
+    }
+
+    // True when the timer was still pending
+    public synchronized boolean cancel(Timer<T> timer) {
+        if (timer.slot == null) {
+            return false;
+        }
+        timer.slot.remove(timer);
+        return true;
+    }
+
+    // Process every tick up to now and return the values that came due
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long lastTick = nowMs / tickMs;
+        // A long pause only needs one pass over the wheel
+        if (lastTick - currentTick > slots.length) {
+            for (Slot<T> slot : slots) {
+                slot.expire(lastTick, expired);
+            }
+            currentTick = lastTick + 1;
+            return expired;
+        }
+        while (currentTick <= lastTick) {
+            slots[(int) (currentTick & mask)].expire(currentTick, expired);
+            currentTick++;
+        }
+        return expired;
+    }
+
+    // Pending timer of one value
+    public static final class Timer<T> {
+        private final T value;
+        private final long tick;
+        private Slot<T> slot;
+        private Timer<T> previous;
+        private Timer<T> next;
+
+        private Timer(T value, long tick) {
+            this.value = value;
+            this.tick = tick;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+
+    // Doubly linked timers of one slot
+    private static final class Slot<T> {
+        private Timer<T> head;
+
+        private void add(Timer<T> timer) {
+            timer.slot = this;
+            timer.next = head;
+            if (head != null) {
+                head.previous = timer;
+            }
+            head = timer;
+        }
+
+        private void remove(Timer<T> timer) {
+            if (timer.previous != null) {
+                timer.previous.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.previous = timer.previous;
+            }
+            timer.slot = null;
+            timer.previous = null;
+            timer.next = null;
+        }
+
+        // Fire the timers due by a tick; later ones stay for a coming turn
+        private void expire(long tick, List<T> expired) {
+            Timer<T> timer = head;
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                if (timer.tick <= tick) {
+                    remove(timer);
+                    expired.add(timer.value);
+                }
+                timer = next;
+            }
+        }
+    }
+}
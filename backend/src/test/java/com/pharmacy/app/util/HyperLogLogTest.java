@@ -0,0 +1,125 @@
+package com.pharmacy.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    // Three standard errors; the inputs are fixed, so the estimates are too
+    private static final double BOUND = 3 * HyperLogLog.STANDARD_ERROR;
+
+    private static HyperLogLog sketchOf(String prefix, int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add(prefix + i);
+        }
+        return sketch;
+    }
+
+    private static void assertWithinBound(long expected, long estimate) {
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(error <= BOUND, "estimate " + estimate + " of " + expected + " is off by " + error);
+    }
+
+    @Test
+    void emptySketchEstimatesZero() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        assertTrue(sketch.isEmpty());
+        assertEquals(0, sketch.estimate());
+    }
+
+    @Test
+    void estimateStaysWithinErrorBound() {
+        // Small counts use linear counting, large ones the harmonic mean
+        for (int count : new int[] {100, 1_000, 10_000, 50_000, 100_000, 1_000_000}) {
+            assertWithinBound(count, sketchOf("customer-", 0, count).estimate());
+        }
+    }
+
+    @Test
+    void duplicatesDoNotChangeEstimate() {
+        HyperLogLog sketch = sketchOf("customer-", 0, 10_000);
+        long estimate = sketch.estimate();
+
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("customer-" + i);
+        }
+
+        assertEquals(estimate, sketch.estimate());
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        // Overlapping halves: 0..60k and 40k..100k
+        HyperLogLog first = sketchOf("customer-", 0, 60_000);
+        HyperLogLog second = sketchOf("customer-", 40_000, 100_000);
+        HyperLogLog all = sketchOf("customer-", 0, 100_000);
+
+        HyperLogLog merged = first.copy().merge(second);
+
+        assertArrayEquals(all.toBytes(), merged.toBytes());
+        assertEquals(all.estimate(), merged.estimate());
+        assertWithinBound(100_000, merged.estimate());
+    }
+
+    @Test
+    void mergeIsIdempotentAndCommutative() {
+        HyperLogLog first = sketchOf("a-", 0, 20_000);
+        HyperLogLog second = sketchOf("b-", 0, 30_000);
+
+        HyperLogLog once = first.copy().merge(second);
+        HyperLogLog twice = first.copy().merge(second).merge(second);
+        HyperLogLog reversed = second.copy().merge(first);
+
+        assertArrayEquals(once.toBytes(), twice.toBytes());
+        assertArrayEquals(once.toBytes(), reversed.toBytes());
+        assertWithinBound(50_000, once.estimate());
+    }
+
+    @Test
+    void mergeLeavesOtherUnchanged() {
+        HyperLogLog first = sketchOf("a-", 0, 1_000);
+        HyperLogLog second = sketchOf("b-", 0, 1_000);
+        byte[] before = second.toBytes();
+
+        first.merge(second);
+
+        assertArrayEquals(before, second.toBytes());
+    }
+
+    @Test
+    void sparseBytesRoundTrip() {
+        HyperLogLog sketch = sketchOf("customer-", 0, 500);
+        byte[] bytes = sketch.toBytes();
+
+        assertTrue(bytes.length < HyperLogLog.REGISTERS, "a small sketch serializes sparse");
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertArrayEquals(bytes, restored.toBytes());
+        assertEquals(sketch.estimate(), restored.estimate());
+    }
+
+    @Test
+    void denseBytesRoundTrip() {
+        HyperLogLog sketch = sketchOf("customer-", 0, 100_000);
+        byte[] bytes = sketch.toBytes();
+
+        assertEquals(HyperLogLog.REGISTERS + 1, bytes.length);
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertArrayEquals(bytes, restored.toBytes());
+        assertEquals(sketch.estimate(), restored.estimate());
+    }
+
+    @Test
+    void fromBytesRejectsUnknownEncoding() {
+        assertTrue(HyperLogLog.fromBytes(null).isEmpty());
+        assertTrue(HyperLogLog.fromBytes(new byte[0]).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] {0, 1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] {7, 0, 0, 1}));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] {1, 0, 0}));
+    }
+}
@@ -0,0 +1,151 @@
+package com.pharmacy.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    // 100 ms ticks on 8 slots: one turn of the wheel is 800 ms
+    private static final long TICK = 100;
+    private static final int SIZE = 8;
+
+    private static TimingWheel<String> wheel() {
+        return new TimingWheel<>(TICK, SIZE, 0);
+    }
+
+    @Test
+    void timerFiresAtItsDeadlineAndNotBefore() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule("a", 1_000);
+
+        assertTrue(wheel.advance(999).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(1_000));
+        assertTrue(wheel.advance(1_000).isEmpty());
+        assertTrue(wheel.advance(2_000).isEmpty());
+    }
+
+    @Test
+    void deadlineBetweenTicksFiresWithinOneTick() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule("a", 1_050);
+
+        assertTrue(wheel.advance(1_050).isEmpty());
+        assertTrue(wheel.advance(1_099).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(1_100));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        TimingWheel<String> wheel = wheel();
+        wheel.advance(500);
+        wheel.schedule("late", 100);
+
+        assertEquals(List.of("late"), wheel.advance(600));
+    }
+
+    @Test
+    void timerBeyondOneTurnWaitsForItsTurn() {
+        TimingWheel<String> wheel = wheel();
+        // Tick 25 shares its slot with ticks 1, 9 and 17
+        wheel.schedule("far", 2_500);
+        wheel.schedule("near", 100);
+
+        List<String> fired = new ArrayList<>();
+        for (long now = 0; now < 2_500; now += TICK) {
+            fired.addAll(wheel.advance(now));
+        }
+        assertEquals(List.of("near"), fired);
+        assertEquals(List.of("far"), wheel.advance(2_500));
+    }
+
+    @Test
+    void timersOnSameTickAllFire() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule("a", 300);
+        wheel.schedule("b", 300);
+        wheel.schedule("c", 300);
+
+        assertEquals(Set.of("a", "b", "c"), new HashSet<>(wheel.advance(300)));
+    }
+
+    @Test
+    void cancelledTimerDoesNotFire() {
+        TimingWheel<String> wheel = wheel();
+        TimingWheel.Timer<String> a = wheel.schedule("a", 300);
+        TimingWheel.Timer<String> b = wheel.schedule("b", 300);
+        TimingWheel.Timer<String> c = wheel.schedule("c", 300);
+
+        // Middle, then head and tail of the slot's list
+        assertTrue(wheel.cancel(b));
+        assertFalse(wheel.cancel(b));
+        assertEquals(Set.of("a", "c"), new HashSet<>(wheel.advance(300)));
+        assertFalse(wheel.cancel(a));
+        assertFalse(wheel.cancel(c));
+    }
+
+    @Test
+    void cancelOfEveryTimerInSlotLeavesItEmpty() {
+        TimingWheel<String> wheel = wheel();
+        TimingWheel.Timer<String> a = wheel.schedule("a", 300);
+        TimingWheel.Timer<String> b = wheel.schedule("b", 300);
+
+        assertTrue(wheel.cancel(a));
+        assertTrue(wheel.cancel(b));
+        assertTrue(wheel.advance(1_000).isEmpty());
+
+        // The slot still takes new timers
+        wheel.schedule("c", 1_100);
+        assertEquals(List.of("c"), wheel.advance(1_100));
+    }
+
+    @Test
+    void longPauseFiresEverythingDueOnce() {
+        TimingWheel<String> wheel = wheel();
+        Set<String> due = new HashSet<>();
+        for (int i = 1; i <= 50; i++) {
+            wheel.schedule("due-" + i, i * 130L);
+            due.add("due-" + i);
+        }
+        TimingWheel.Timer<String> cancelled = wheel.schedule("cancelled", 5_000);
+        wheel.schedule("later", 100_000);
+        wheel.schedule("latest", 100_050);
+        wheel.cancel(cancelled);
+
+        // 100 ticks, over twelve turns of the wheel
+        List<String> fired = wheel.advance(10_000);
+
+        assertEquals(due.size(), fired.size());
+        assertEquals(due, new HashSet<>(fired));
+        assertTrue(wheel.advance(10_000).isEmpty());
+    }
+
+    @Test
+    void longPauseKeepsTimersSeveralTurnsAhead() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule("later", 100_000);
+        wheel.schedule("latest", 100_050);
+
+        assertTrue(wheel.advance(10_000).isEmpty());
+        assertTrue(wheel.advance(99_999).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(100_000));
+        assertEquals(List.of("latest"), wheel.advance(100_100));
+    }
+
+    @Test
+    void schedulingAfterLongPauseUsesCurrentTime() {
+        TimingWheel<String> wheel = wheel();
+        wheel.advance(10_000);
+        wheel.schedule("next", 10_150);
+
+        assertTrue(wheel.advance(10_100).isEmpty());
+        assertEquals(List.of("next"), wheel.advance(10_200));
+    }
+}